@@ -0,0 +1,10 @@
+package AutomationFramework.exceptions;
+
+/**
+ * Exception thrown when a test sent more WebDriver commands than its budget, see CommandStats
+ */
+public class CommandBudgetExceededException extends RuntimeException {
+    public CommandBudgetExceededException(String msg) {
+        super("ERROR - APP: " + msg);
+    }
+}
@@ -0,0 +1,10 @@
+package AutomationFramework.exceptions;
+
+/**
+ * Exception thrown when the browser session of the current thread is known to be dead
+ */
+public class SessionDeadException extends RuntimeException {
+    public SessionDeadException(String msg) {
+        super("ERROR - APP: " + msg);
+    }
+}
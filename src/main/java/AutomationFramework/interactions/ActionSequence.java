@@ -0,0 +1,283 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.runner.WebDriverManager;
+import AutomationFramework.utils.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Actions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * Multi-step pointer and keyboard interaction sent to the browser as one W3C action payload.
+ *
+ * Every Actions.perform() is a remote call, so a hover menu, a drag and drop or a keyboard shortcut built from
+ * separate helpers costs one round trip per step. The steps collected here, across any number of elements,
+ * go out in a single perform():
+ *
+ *     new ActionSequence()
+ *             .hover(menu)
+ *             .click(By.id("item"))
+ *             .keyDown(Keys.CONTROL).keys("a").keyUp(Keys.CONTROL)
+ *             .perform();
+ *
+ * Locators are resolved with Elements.findElement when perform() is called, once per locator.
+ */
+public class ActionSequence {
+    /***
+     * One step of the sequence, added to the Actions payload once its element is resolved
+     */
+    private interface Step {
+        void addTo(Actions actions, WebElement element);
+    }
+
+    private final List<WebElement>  elements = new ArrayList<>();
+    private final List<By>          locators = new ArrayList<>();
+    private final List<Step>        steps    = new ArrayList<>();
+    private final List<String>      names    = new ArrayList<>();
+
+    /***
+     * Moves the pointer to the center of the element
+     *
+     * @param element           - web element
+     * @return                  - this sequence
+     */
+    public ActionSequence hover(WebElement element) {
+        return add("hover", element, null, Actions::moveToElement);
+    }
+
+    /***
+     * Moves the pointer to the center of the element
+     *
+     * @param by                - element locator, resolved on perform()
+     * @return                  - this sequence
+     */
+    public ActionSequence hover(By by) {
+        return add("hover", null, by, Actions::moveToElement);
+    }
+
+    /***
+     * Moves the pointer to the element and clicks it
+     *
+     * @param element           - web element
+     * @return                  - this sequence
+     */
+    public ActionSequence click(WebElement element) {
+        return add("click", element, null, Actions::click);
+    }
+
+    /***
+     * Moves the pointer to the element and clicks it
+     *
+     * @param by                - element locator, resolved on perform()
+     * @return                  - this sequence
+     */
+    public ActionSequence click(By by) {
+        return add("click", null, by, Actions::click);
+    }
+
+    /***
+     * Moves the pointer to the element and double clicks it
+     *
+     * @param element           - web element
+     * @return                  - this sequence
+     */
+    public ActionSequence doubleClick(WebElement element) {
+        return add("doubleClick", element, null, Actions::doubleClick);
+    }
+
+    /***
+     * Moves the pointer to the element and double clicks it
+     *
+     * @param by                - element locator, resolved on perform()
+     * @return                  - this sequence
+     */
+    public ActionSequence doubleClick(By by) {
+        return add("doubleClick", null, by, Actions::doubleClick);
+    }
+
+    /***
+     * Moves the pointer to the element and right clicks it
+     *
+     * @param element           - web element
+     * @return                  - this sequence
+     */
+    public ActionSequence contextClick(WebElement element) {
+        return add("contextClick", element, null, Actions::contextClick);
+    }
+
+    /***
+     * Moves the pointer to the element and right clicks it
+     *
+     * @param by                - element locator, resolved on perform()
+     * @return                  - this sequence
+     */
+    public ActionSequence contextClick(By by) {
+        return add("contextClick", null, by, Actions::contextClick);
+    }
+
+    /***
+     * Clicks the element to focus it, then types the text
+     *
+     * @param element           - web element
+     * @param text              - text or keys to type
+     * @return                  - this sequence
+     */
+    public ActionSequence type(WebElement element, CharSequence... text) {
+        return add("type", element, null, (actions, target) -> actions.sendKeys(target, text));
+    }
+
+    /***
+     * Clicks the element to focus it, then types the text
+     *
+     * @param by                - element locator, resolved on perform()
+     * @param text              - text or keys to type
+     * @return                  - this sequence
+     */
+    public ActionSequence type(By by, CharSequence... text) {
+        return add("type", null, by, (actions, target) -> actions.sendKeys(target, text));
+    }
+
+    /***
+     * Drags the source element and drops it on the target element
+     *
+     * @param source            - web element to drag
+     * @param target            - web element to drop on
+     * @return                  - this sequence
+     */
+    public ActionSequence dragAndDrop(WebElement source, WebElement target) {
+        add("drag", source, null, Actions::clickAndHold);
+        return add("drop", target, null, ActionSequence::drop);
+    }
+
+    /***
+     * Drags the source element and drops it on the target element
+     *
+     * @param source            - locator of the element to drag, resolved on perform()
+     * @param target            - locator of the element to drop on, resolved on perform()
+     * @return                  - this sequence
+     */
+    public ActionSequence dragAndDrop(By source, By target) {
+        add("drag", null, source, Actions::clickAndHold);
+        return add("drop", null, target, ActionSequence::drop);
+    }
+
+    private static void drop(Actions actions, WebElement element) {
+        actions.moveToElement(element).release();
+    }
+
+    /***
+     * Types keys in the focused element
+     *
+     * @param keys              - text or keys to type
+     * @return                  - this sequence
+     */
+    public ActionSequence keys(CharSequence... keys) {
+        return add("keys", null, null, (actions, element) -> actions.sendKeys(keys));
+    }
+
+    /***
+     * Presses a modifier key (CONTROL, SHIFT, ALT, META) until keyUp
+     *
+     * @param key               - modifier key
+     * @return                  - this sequence
+     */
+    public ActionSequence keyDown(Keys key) {
+        return add("keyDown " + key.name(), null, null, (actions, element) -> actions.keyDown(key));
+    }
+
+    /***
+     * Releases a modifier key pressed with keyDown
+     *
+     * @param key               - modifier key
+     * @return                  - this sequence
+     */
+    public ActionSequence keyUp(Keys key) {
+        return add("keyUp " + key.name(), null, null, (actions, element) -> actions.keyUp(key));
+    }
+
+    /***
+     * Pauses inside the payload, e.g. to let a hover menu open; no round trip is spent
+     *
+     * @param millis            - pause duration
+     * @return                  - this sequence
+     */
+    public ActionSequence pause(long millis) {
+        return add("pause " + millis, null, null, (actions, element) -> actions.pause(Duration.ofMillis(millis)));
+    }
+
+    /***
+     * Adds a step
+     *
+     * @param name              - step name used in the log
+     * @param element           - element of the step, null if it has none or has a locator
+     * @param by                - locator of the step, null if it has none or has an element
+     * @param step              - adds the step to the payload
+     * @return                  - this sequence
+     */
+    private ActionSequence add(String name, WebElement element, By by, Step step) {
+        Object target = by != null ? by : element;
+        names.add(target == null ? name : name + " " + target);
+        elements.add(element);
+        locators.add(by);
+        steps.add(step);
+        return this;
+    }
+
+    /***
+     * @return                  - number of steps collected
+     */
+    public int size() {
+        return steps.size();
+    }
+
+    /***
+     * Resolves the locators and sends every step in one perform()
+     *
+     * @throws Exception        - NoSuchElementException if a locator matches no element
+     */
+    public void perform() throws Exception {
+        if (steps.isEmpty()) {
+            return;
+        }
+
+        Map<By, WebElement> resolved = new HashMap<>();
+        Actions actions = new Actions(WebDriverManager.getWebDriver());
+        for (int i = 0; i < steps.size(); i++) {
+            steps.get(i).addTo(actions, resolve(elements.get(i), locators.get(i), resolved));
+        }
+
+        actions.build().perform();
+        Logger.debug(() -> "Performed actions: " + String.join(", ", names));
+    }
+
+    /***
+     * Resolves the target of a step
+     *
+     * @param element           - element of the step, null if it has a locator or no target
+     * @param by                - locator of the step, null if it has an element or no target
+     * @param resolved          - elements already found for this payload
+     * @return                  - the element, null if the step has no target
+     */
+    private static WebElement resolve(WebElement element, By by, Map<By, WebElement> resolved) throws Exception {
+        if (by == null) {
+            return element;
+        }
+
+        WebElement found = resolved.get(by);
+        if (found == null) {
+            found = Elements.findElement(by);
+            if (found == null) {
+                throw new NoSuchElementException("Unable to locate an element using selector : " + by);
+            }
+            resolved.put(by, found);
+        }
+        return found;
+    }
+}
@@ -1,14 +1,160 @@
 package AutomationFramework.interactions;
 
 import AutomationFramework.utils.Logger;
+import AutomationFramework.utils.Trace;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Abstract class responsible for any checkbox interaction check, uncheck status etc.
  */
 public abstract class Checkbox {
+    /**
+     * Sets many checkboxes at once: reads every state in one script, clicks the boxes to toggle in one action payload
+     * and verifies the final states in one more read, instead of a lookup, an isSelected(), a click and a verification
+     * per box.
+     * Boxes which are not displayed (hidden inputs styled through their label) are clicked one by one through
+     * Clicks.click, never toggled from a script directly.
+     *
+     * @param states                - locator of each checkbox and whether it should be checked, applied in map order
+     * @throws Exception            - if a checkbox is not found or doesn't end up in the wanted state
+     * @throws IllegalArgumentException if a checkbox has no wanted state (null)
+     */
+    public static void setStates(Map<By, Boolean> states) throws Exception {
+        try (Trace.Span span = Trace.span("checkbox setStates", states.keySet())) {
+            if (states.isEmpty()) {
+                return;
+            }
+
+            List<By> locators = new ArrayList<>(states.keySet());
+            List<Boolean> wanted = new ArrayList<>(states.values());
+            int missing = wanted.indexOf(null);
+            if (missing >= 0) {
+                throw new IllegalArgumentException("No wanted state given for checkbox " + locators.get(missing));
+            }
+
+            List<ElementSnapshot> read = read(locators);
+            List<WebElement> elements = new ArrayList<>();
+            List<WebElement> toClick = new ArrayList<>();
+            List<Integer> toClickOneByOne = new ArrayList<>();
+            List<WebElement> toggled = new ArrayList<>();
+            for (int i = 0; i < locators.size(); i++) {
+                ElementSnapshot box = read.get(i);
+                elements.add(box.getElement());
+                // two locators may point to the same box, which must be toggled only once
+                if (box.isSelected() != wanted.get(i) && !toggled.contains(box.getElement())) {
+                    toggled.add(box.getElement());
+                    if (box.isDisplayed()) {
+                        toClick.add(box.getElement());
+                    } else {
+                        toClickOneByOne.add(i);
+                    }
+                }
+            }
+            Logger.debug(() -> String.format("Checkboxes: %d to toggle out of %d", toClick.size() + toClickOneByOne.size(), locators.size()));
+
+            if (!toClick.isEmpty()) {
+                ActionSequence clicks = new ActionSequence();
+                toClick.forEach(clicks::click);
+                try {
+                    clicks.perform();
+                }
+                catch (WebDriverException e) {
+                    // the payload may have stopped half way, click one by one what is still wrong
+                    Logger.debug(() -> "Checkbox clicks failed, clicking one by one: " + e.getMessage());
+                    toClickOneByOne.clear();
+                    List<WebElement> retried = new ArrayList<>();
+                    for (int i : mismatches(elements, wanted)) {
+                        if (!retried.contains(elements.get(i))) {
+                            retried.add(elements.get(i));
+                            toClickOneByOne.add(i);
+                        }
+                    }
+                }
+            }
+            // hidden boxes (e.g. inputs styled through their label) go through the usual click strategies,
+            // which fail with a clear error if no strategy can click them
+            for (int i : toClickOneByOne) {
+                Clicks.click(locators.get(i));
+            }
+
+            List<Integer> wrong = mismatches(elements, wanted);
+            if (!wrong.isEmpty()) {
+                List<By> wrongLocators = new ArrayList<>();
+                wrong.forEach(i -> wrongLocators.add(locators.get(i)));
+                Logger.exception("Checkboxes not in the wanted state: " + wrongLocators);
+            }
+        }
+    }
+
+    /**
+     * Sets many checkboxes at once, see setStates(Map)
+     *
+     * @param states                - String selector of each checkbox and whether it should be checked
+     * @throws Exception            - if a checkbox is not found or doesn't end up in the wanted state
+     */
+    public static void setStatesByLocator(Map<String, Boolean> states) throws Exception {
+        Map<By, Boolean> byStates = new LinkedHashMap<>();
+        for (Map.Entry<String, Boolean> entry : states.entrySet()) {
+            byStates.put(Elements.by(entry.getKey()), entry.getValue());
+        }
+        setStates(byStates);
+    }
+
+    /**
+     * Reads state and visibility of the checkboxes, resolving the locators in the same script when possible
+     *
+     * @param locators              - checkbox locators
+     * @return                      - one snapshot per locator
+     * @throws Exception            - if a checkbox is not found
+     */
+    private static List<ElementSnapshot> read(List<By> locators) throws Exception {
+        EnumSet<ElementProperty> properties = EnumSet.of(ElementProperty.SELECTED, ElementProperty.DISPLAYED);
+        if (locators.stream().allMatch(ScriptLookup::supports)) {
+            List<ElementSnapshot> read = Elements.readPropertiesBy(locators, properties);
+            if (read.stream().allMatch(ElementSnapshot::isFound)) {
+                return read;
+            }
+        }
+
+        // some boxes are not there yet or can't be found in the page: wait for each one, then read them together
+        List<WebElement> elements = new ArrayList<>();
+        for (By by : locators) {
+            WebElement checkBox = Elements.findElement(by, false);
+            if (checkBox == null) {
+                Logger.exception("Couldn't find the given checkbox: " + by);
+            }
+            elements.add(checkBox);
+        }
+        return Elements.readProperties(elements, properties);
+    }
+
+    /**
+     * Reads the state of every checkbox in one script
+     *
+     * @param elements              - checkbox elements
+     * @param wanted                - wanted state of each element, same order as the elements
+     * @return                      - positions of the checkboxes which are not in the wanted state
+     */
+    private static List<Integer> mismatches(List<WebElement> elements, List<Boolean> wanted) {
+        List<ElementSnapshot> read = Elements.readProperties(elements, EnumSet.of(ElementProperty.SELECTED));
+        List<Integer> wrong = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i++) {
+            if (read.get(i).isSelected() != wanted.get(i)) {
+                wrong.add(i);
+            }
+        }
+        return wrong;
+    }
+
     /**
      * Checks a checkbox if it is not already checked
      * @param locator               - String selector
@@ -38,14 +184,16 @@ public abstract class Checkbox {
      * @throws NoSuchElementException exception if element was not found
      */
     public static void check(By by) throws Exception {
-        WebElement checkBox = Elements.findElement(by, false);
-        if (checkBox != null && !checkBox.isSelected()) {
-            Clicks.click(checkBox);
-            return;
-        }
+        try (Trace.Span span = Trace.span("checkbox check", by)) {
+            WebElement checkBox = Elements.findElement(by, false);
+            if (checkBox != null && !checkBox.isSelected()) {
+                Clicks.click(checkBox);
+                return;
+            }
 
-        if(checkBox == null) Logger.exception("Couldn't find the given checkbox!");
-        Logger.debug("Checkbox already checked.");
+            if(checkBox == null) Logger.exception("Couldn't find the given checkbox!");
+            Logger.debug("Checkbox already checked.");
+        }
     }
 
     /**
@@ -78,14 +226,16 @@ public abstract class Checkbox {
      * @throws NoSuchElementException exception if element was not found
      */
     public static void uncheck(By by) throws Exception {
-        WebElement checkBox = Elements.findElement(by, false);
-        if (checkBox != null && checkBox.isSelected()) {
-            Clicks.click(checkBox);
-            return;
-        }
+        try (Trace.Span span = Trace.span("checkbox uncheck", by)) {
+            WebElement checkBox = Elements.findElement(by, false);
+            if (checkBox != null && checkBox.isSelected()) {
+                Clicks.click(checkBox);
+                return;
+            }
 
-        if(checkBox == null) Logger.exception("Couldn't find the given checkbox!");
-        Logger.debug("Checkbox already unchecked.");
+            if(checkBox == null) Logger.exception("Couldn't find the given checkbox!");
+            Logger.debug("Checkbox already unchecked.");
+        }
     }
 
     /**
@@ -0,0 +1,128 @@
+package AutomationFramework.interactions;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Which click strategy works, per locator.
+ *
+ * Clicks.click tries NATIVE, then ACTIONS, then SCRIPT. Each outcome is added to a per locator score which decays
+ * with every new click on the locator, so old wins fade out. ACTIONS goes first for a locator only when its recent
+ * score beats NATIVE by a clear margin (an element always covered by a sticky header goes straight to the click that
+ * works), and every few clicks the default order is tried again: a native win puts the locator back on it.
+ * SCRIPT is never promoted: it clicks through overlays, so it stays the last resort and never hides an
+ * "element is covered" bug.
+ */
+public abstract class ClickStats {
+    // weight kept by the past outcomes at each new click on a locator
+    private static final double DECAY           = 0.8;
+    // score lead ACTIONS needs over NATIVE to go first, about three recent wins
+    private static final double MARGIN          = 2.0;
+    // every n-th click on a locator uses the default order, so NATIVE gets a chance to win back its place
+    private static final int    REPROBE_EVERY   = 10;
+
+    private static final Map<String, Counters>              perLocator  = new ConcurrentHashMap<>();
+    private static final Map<ClickStrategy, LongAdder>      attempts    = counters();
+    private static final Map<ClickStrategy, LongAdder>      wins        = counters();
+
+    /***
+     * Decaying score of each strategy for one locator
+     */
+    private static class Counters {
+        final double[]  scores = new double[ClickStrategy.values().length];
+        long            clicks;
+    }
+
+    private static Map<ClickStrategy, LongAdder> counters() {
+        Map<ClickStrategy, LongAdder> map = new EnumMap<>(ClickStrategy.class);
+        for (ClickStrategy strategy : ClickStrategy.values()) {
+            map.put(strategy, new LongAdder());
+        }
+        return map;
+    }
+
+    /***
+     * Orders the strategies for a locator: ACTIONS before NATIVE if it clearly works better lately, SCRIPT always last
+     *
+     * @param locator           - locator description (see WaitProfile.describe)
+     * @return                  - strategies to try, in order
+     */
+    static List<ClickStrategy> order(String locator) {
+        Counters counters = perLocator.get(locator);
+        if (counters != null) {
+            synchronized (counters) {
+                counters.clicks++;
+                boolean reprobe = counters.clicks % REPROBE_EVERY == 0;
+                double actions = counters.scores[ClickStrategy.ACTIONS.ordinal()];
+                double nativeScore = counters.scores[ClickStrategy.NATIVE.ordinal()];
+                if (!reprobe && actions >= nativeScore + MARGIN) {
+                    return Arrays.asList(ClickStrategy.ACTIONS, ClickStrategy.NATIVE, ClickStrategy.SCRIPT);
+                }
+            }
+        }
+        return Arrays.asList(ClickStrategy.NATIVE, ClickStrategy.ACTIONS, ClickStrategy.SCRIPT);
+    }
+
+    /***
+     * Records a click attempt
+     *
+     * @param locator           - locator description
+     * @param strategy          - strategy tried
+     * @param success           - true if the click went through
+     */
+    static void record(String locator, ClickStrategy strategy, boolean success) {
+        Counters counters = perLocator.computeIfAbsent(locator, k -> new Counters());
+        attempts.get(strategy).increment();
+        if (success) {
+            wins.get(strategy).increment();
+        }
+        synchronized (counters) {
+            if (success) {
+                // the click is over: age every score once, then credit the winner
+                for (int i = 0; i < counters.scores.length; i++) {
+                    counters.scores[i] *= DECAY;
+                }
+                counters.scores[strategy.ordinal()] += 1;
+                if (strategy == ClickStrategy.NATIVE) {
+                    // the default works again (e.g. on a re-probe), back to the default order
+                    counters.scores[ClickStrategy.ACTIONS.ordinal()] = 0;
+                }
+            }
+            else {
+                counters.scores[strategy.ordinal()] = Math.max(0, counters.scores[strategy.ordinal()] - 1);
+            }
+        }
+    }
+
+    /***
+     * @param strategy          - click strategy
+     * @return                  - number of clicks tried with this strategy
+     */
+    public static long getAttemptCount(ClickStrategy strategy) {
+        return attempts.get(strategy).sum();
+    }
+
+    /***
+     * @param strategy          - click strategy
+     * @return                  - number of clicks that went through with this strategy
+     */
+    public static long getWinCount(ClickStrategy strategy) {
+        return wins.get(strategy).sum();
+    }
+
+    /***
+     * @return                  - wins and attempts of each strategy,
+     *                            e.g. "Clicks: NATIVE 40/42 ACTIONS 2/2 SCRIPT 0/0"
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder("Clicks:");
+        for (ClickStrategy strategy : ClickStrategy.values()) {
+            summary.append(String.format(" %s %d/%d", strategy, wins.get(strategy).sum(), attempts.get(strategy).sum()));
+        }
+        return summary.toString();
+    }
+}
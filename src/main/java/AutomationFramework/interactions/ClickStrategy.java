@@ -0,0 +1,42 @@
+package AutomationFramework.interactions;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Actions;
+
+/***
+ * Ways Clicks.click can click an element, tried in this order (see ClickStats for the learned order)
+ */
+public enum ClickStrategy {
+    // WebElement.click(): one remote call, the driver scrolls to the element and checks it can receive the click
+    NATIVE {
+        @Override
+        void click(WebDriver driver, WebElement element) {
+            element.click();
+        }
+    },
+    // move and click in one Actions payload, for elements the native click considers hidden or covered by a hover menu
+    ACTIONS {
+        @Override
+        void click(WebDriver driver, WebElement element) {
+            new Actions(driver).moveToElement(element).click().build().perform();
+        }
+    },
+    // HTMLElement.click() from a script, ignores overlays and visibility, last resort
+    SCRIPT {
+        @Override
+        void click(WebDriver driver, WebElement element) {
+            ((JavascriptExecutor) driver).executeScript("arguments[0].click();", element);
+        }
+    };
+
+    /***
+     * Clicks the element
+     *
+     * @param driver            - web driver
+     * @param element           - element to click
+     * @throws org.openqa.selenium.WebDriverException if the click failed
+     */
+    abstract void click(WebDriver driver, WebElement element);
+}
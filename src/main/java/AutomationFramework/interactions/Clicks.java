@@ -8,18 +8,35 @@
  */
 package AutomationFramework.interactions;
 
+import AutomationFramework.exceptions.SessionDeadException;
 import AutomationFramework.runner.WebDriverManager;
 import AutomationFramework.utils.Logger;
+import AutomationFramework.utils.Metrics;
+import AutomationFramework.utils.RetryPolicy;
+import AutomationFramework.utils.Trace;
 import org.openqa.selenium.*;
-import org.openqa.selenium.interactions.Actions;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import org.openqa.selenium.interactions.MoveTargetOutOfBoundsException;
 
 /**
  * Class responsible with click type events on the page: click, double click, move and click etc
 	@FindBy(css="")
  */
 public abstract class Clicks {
+    private static final Metrics.Histogram  CLICK_LATENCY   = Metrics.histogram("clicks.latency");
+    private static final Metrics.Counter    CLICK_FALLBACKS = Metrics.counter("clicks.fallbacks");
+    private static final Metrics.Counter    CLICK_FAILURES  = Metrics.counter("clicks.failures");
+    private static final RetryPolicy STALE_RETRY = RetryPolicy.builder("click.stale")
+            .maxAttempts(2)
+            .retryOn(StaleElementReferenceException.class)
+            .build();
+
+    // click, then wait for the element to go away; clicked again while it's still there, never past the deadline
+    private static final RetryPolicy CLICK_AND_RETRY = RetryPolicy.builder("click.retry")
+            .maxAttempts(2)
+            .backoff(200, 1000)
+            .deadlineMillis(60000)
+            .retryOn(StaleElementReferenceException.class, ElementNotInteractableException.class)
+            .build();
 
     /**
      * Clicks an element
@@ -28,7 +45,7 @@ public abstract class Clicks {
      * @throws NoSuchElementException thrown if no element is found
      */
     public static void click(String locator) throws Exception {
-        click(Elements.findElement(locator));
+        click(Elements.by(locator));
     }
 
     /**
@@ -38,7 +55,17 @@ public abstract class Clicks {
      * @throws                      - NoSuchElementException thrown if no element is found
      */
     public static void click(By by) throws Exception {
-        click(Elements.findElement(by));
+        // lookup and clickable waits share one deadline instead of adding up their timeouts
+        try (WaitBudget budget = WaitBudget.open("click " + by); Trace.Span span = Trace.span("click", by)) {
+            STALE_RETRY.execute(attempt -> {
+                if (attempt > 1) {
+                    // the cached element was replaced in the page, look it up again
+                    ElementCache.forget(by);
+                }
+                click(Elements.findElement(by));
+                return null;
+            });
+        }
     }
 
     /**
@@ -68,19 +95,62 @@ public abstract class Clicks {
     /**
      * clicks a WebElement
      *
+     * Tries a native click first (one remote call), then a single Actions move-and-click, then a script click,
+     * falling back only when the element is not interactable, covered or out of reach. A locator where Actions
+     * clearly works better than the native click lately starts with Actions (see ClickStats).
+     *
      * @param el                    - By selector to use
      * @throws                      - NoSuchElementException thrown if no element is found
      */
     public static void click(WebElement el) throws Exception {
-        int timeout = 10;
         if (el == null) {
             throw new NoSuchElementException("Unable to click null element");
         }
 
         WebDriver driver = WebDriverManager.getWebDriver();
-        Actions actions = new Actions(driver);
+        String locator = WaitProfile.describe(el);
+        boolean waited = false;
+        WebDriverException failure = null;
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("click element", locator)) {
+            for (ClickStrategy strategy : ClickStats.order(locator)) {
+                try {
+                    strategy.click(driver, el);
+                    ClickStats.record(locator, strategy, true);
+                    Logger.debug(() -> "Clicked element (" + strategy + "): " + locator);
+                    return;
+                } catch (ElementNotInteractableException | MoveTargetOutOfBoundsException ex) {
+                    ClickStats.record(locator, strategy, false);
+                    CLICK_FALLBACKS.increment();
+                    Logger.debug(() -> strategy + " click failed on " + locator + ": " + ex.getMessage());
+                    failure = ex;
+                    if (!waited) {
+                        // the element may still be appearing or animating, give it a chance before the next strategy
+                        waitClickable(el, locator);
+                        waited = true;
+                    }
+                }
+            }
+        } finally {
+            CLICK_LATENCY.recordSince(start);
+        }
+        CLICK_FAILURES.increment();
+        throw failure != null ? failure : new ElementNotInteractableException("No click strategy could click " + locator);
+    }
+
+    /**
+     * Waits for an element to be displayed and enabled
+     *
+     * @param el                    - element to wait for
+     * @param locator               - locator description of the element
+     * @throws                      - NoSuchElementException if the element is not clickable within the default timeout
+     */
+    private static void waitClickable(WebElement el, String locator) {
         try {
-            el = new WebDriverWait(driver, timeout).until(ExpectedConditions.elementToBeClickable(el));
+            // same as elementToBeClickable, but a stale element fails right away instead of at the timeout
+            Wait.until("clickable " + locator, Wait.DEFAULT_TIMEOUT_SECONDS, d -> el.isDisplayed() && el.isEnabled() ? el : null);
+        } catch (SessionDeadException | StaleElementReferenceException ex) {
+            throw ex;
         } catch (Exception ex) {
             try {
                 throw new NoSuchElementException("Element not clickable: " + el.getTagName() + ": " + el
@@ -89,28 +159,51 @@ public abstract class Clicks {
                 throw new NoSuchElementException("Element not clickable: " + exc.getMessage());
             }
         }
-
-        try {
-            actions.moveToElement(el).build().perform();
-            actions.click(el).build().perform();
-            Logger.debug("Clicked element: " + el.toString());
-        } catch (WebDriverException ex) {
-            Logger.warn("Error while clicking, trying JS: " + ex.getMessage());
-        }
     }
 
     /**
-     * Moves to a specified web element and clicks on a specified WebElement
+     * Moves to a specified web element and clicks on a specified WebElement, in one action payload
      * @param elementToMoveTo       - Web element to move to
      * @param elementToClick        - Web element to click on
      * @throws Exception            - NoSuchElementException - if element not found, throw exception
      */
     public static void moveToAndClickOn(WebElement elementToMoveTo, WebElement elementToClick) throws Exception {
-        Elements.moveToElement(elementToMoveTo);
-        click(elementToClick);
+        new ActionSequence()
+                .hover(elementToMoveTo)
+                .click(elementToClick)
+                .perform();
+    }
+
+    /**
+     * Moves to a specified web element, clicks on a specified WebElement and moves the cursor away
+     * (e.g. off a hover menu), in one action payload
+     * @param elementToMoveTo       - Web element to move to
+     * @param elementToClick        - Web element to click on
+     * @param moveAwayTo            - Web element to leave the cursor on
+     * @throws Exception            - NoSuchElementException - if element not found, throw exception
+     */
+    public static void moveToAndClickOn(WebElement elementToMoveTo, WebElement elementToClick, WebElement moveAwayTo) throws Exception {
+        new ActionSequence()
+                .hover(elementToMoveTo)
+                .click(elementToClick)
+                .hover(moveAwayTo)
+                .perform();
+    }
 
-        //get the cursor off the dropdown
-        Elements.moveToElement(By.className("logo"));
+    /**
+     * Moves to a specified web element, clicks on a specified WebElement and moves the cursor away
+     * (e.g. off a hover menu), in one action payload
+     * @param elementToMoveTo       - Web element to move to
+     * @param elementToClick        - Web element to click on
+     * @param moveAwayTo            - locator of the element to leave the cursor on
+     * @throws Exception            - NoSuchElementException - if element not found, throw exception
+     */
+    public static void moveToAndClickOn(WebElement elementToMoveTo, WebElement elementToClick, By moveAwayTo) throws Exception {
+        new ActionSequence()
+                .hover(elementToMoveTo)
+                .click(elementToClick)
+                .hover(moveAwayTo)
+                .perform();
     }
 
     /**
@@ -130,31 +223,41 @@ public abstract class Clicks {
      * @param element               - element to double-click on
      */
     public static void doubleClick(WebElement element) {
-        Actions actions = new Actions(WebDriverManager.getWebDriver());
-        actions.moveToElement(element).click().click().build().perform();
+        try {
+            new ActionSequence().doubleClick(element).perform();
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            // only a By target can throw a checked exception while it's looked up, an element never does
+            throw new WebDriverException("Double click failed: " + e.getMessage(), e);
+        }
     }
 
     /**
      * Clicks on an element
-     * Waits for up to a specified timeout to see if the clicked element is no longer visible.
+     * Waits for up to a specified timeout to see if the clicked element is no longer visible,
+     * and clicks it again if it still is.
      *
      * @param locator               - The locator to validate no longer exists to signify the page loaded.
      * @param tries                 - (optional)  - Number of tries for clicking the element and waiting for it to be no longer visible.
-     *                              - default executes the loop for two times.
-     * @param timeout               - Milliseconds to wait for the page to load. If timeOut &lt;= 0 then the default timeout
-     *                                is used (1000 milliseconds).
+     *                              - default executes the loop for two times, at least once; all tries stop after
+     *                                retry.click.retry.deadlineMillis (60 s by default).
+     * @param timeout               - Seconds to wait for the element to go away. If timeOut &lt;= 0 then the default timeout
+     *                                is used.
      * @throws Exception            - throws NoSuchElementException exception if element was not found
      */
     public static void clickAndRetry(String locator, int timeout, int... tries) throws Exception {
-
-        int numberOfTries = tries.length > 0 ? tries[0] : 1;
-        do {
-            if (Wait.waitForVisible(locator, 1, false)) {
-                click(locator);
-            } else break;
-            Wait.waitForNotVisible(locator, timeout, false);
-            numberOfTries--;
-        }
-        while (numberOfTries == 0);
+        // 0 would mean no attempt limit in RetryPolicy, the element is clicked at least once
+        RetryPolicy policy = tries.length > 0 ? CLICK_AND_RETRY.withMaxAttempts(Math.max(1, tries[0])) : CLICK_AND_RETRY;
+        policy.execute(attempt -> {
+            if (!Wait.waitForVisible(locator, 1, false)) {
+                // already gone
+                return true;
+            }
+            click(locator);
+            return Wait.waitForNotVisible(locator, timeout, false);
+        }, Boolean.TRUE::equals);
     }
 }
@@ -0,0 +1,99 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.runner.WebDriverManager;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+
+/***
+ * Wait backend driven by an in-page MutationObserver.
+ *
+ * Instead of polling the browser every 500 ms with WebDriverWait, one executeAsyncScript call installs a
+ * MutationObserver and resolves the moment the condition becomes true, so there is neither dead time between polls
+ * nor a stream of remote calls. A slow safety tick re-checks the condition for changes that are not DOM mutations
+ * (CSS animations, viewport changes).
+ *
+ * Only conditions on selectors that can be evaluated in the page are supported (see ScriptLookup);
+ * Wait falls back to polling for everything else.
+ */
+public abstract class DomWait {
+    // a single script call must stay under the default 30 s script timeout of the driver, longer waits use more calls
+    private static final long MAX_CALL_MILLIS = 25000;
+
+    /***
+     * Conditions the page can evaluate by itself
+     */
+    public enum Condition {
+        PRESENT,
+        VISIBLE,
+        NOT_VISIBLE
+    }
+
+    private static final String AWAIT_SCRIPT = ScriptLookup.FIND_FUNCTIONS +
+            "var strategy = arguments[0], value = arguments[1], condition = arguments[2], timeout = arguments[3];" +
+            "var done = arguments[arguments.length - 1];" +
+            "function met() {" +
+            "  var all = afFind(strategy, value), i;" +
+            "  if (condition === 'NOT_VISIBLE') {" +
+            "    for (i = 0; i < all.length; i++) { if (afVisible(all[i])) { return false; } }" +
+            "    return true;" +
+            "  }" +
+            "  if (document.readyState !== 'complete') { return false; }" +
+            "  if (condition === 'PRESENT') { return all.length > 0; }" +
+            "  for (i = 0; i < all.length; i++) { if (afVisible(all[i])) { return true; } }" +
+            "  return false;" +
+            "}" +
+            "if (met()) { return done(true); }" +
+            "var finished = false, scheduled = false, observer, timer, tick;" +
+            "function finish(result) {" +
+            "  if (finished) { return; }" +
+            "  finished = true;" +
+            "  observer.disconnect(); clearTimeout(timer); clearInterval(tick);" +
+            "  document.removeEventListener('readystatechange', check);" +
+            "  done(result);" +
+            "}" +
+            "function check() { scheduled = false; if (!finished && met()) { finish(true); } }" +
+            "function schedule() { if (!scheduled) { scheduled = true; setTimeout(check, 0); } }" +
+            "observer = new MutationObserver(schedule);" +
+            "observer.observe(document, { childList: true, subtree: true, attributes: true, characterData: true });" +
+            "document.addEventListener('readystatechange', check);" +
+            "tick = setInterval(check, 250);" +
+            "timer = setTimeout(function () { finish(met()); }, timeout);";
+
+    /***
+     * @param by                - selenium By
+     * @return                  - true if conditions on this By can be evaluated in the page
+     */
+    public static boolean supports(By by) {
+        return by != null && ScriptLookup.supports(by);
+    }
+
+    /***
+     * Blocks until the condition is met in the page or the timeout expires
+     *
+     * @param by                - element locator, must be supported (see supports)
+     * @param condition         - condition to wait for
+     * @param timeoutMillis     - max time to wait
+     * @return                  - true if the condition was met, false on timeout
+     * @throws org.openqa.selenium.WebDriverException if the script could not run, the caller should fall back to polling
+     */
+    public static boolean await(By by, Condition condition, long timeoutMillis) {
+        String[] locator = ScriptLookup.toScriptLocator(by);
+        if (locator == null) {
+            throw new IllegalArgumentException("Selector can't be evaluated in the page: " + by);
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            WebDriverManager.checkSessionAlive();
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            Object met = ((JavascriptExecutor) WebDriverManager.getWebDriver()).executeAsyncScript(AWAIT_SCRIPT,
+                    locator[0], locator[1], condition.name(), Math.min(remaining, MAX_CALL_MILLIS));
+            if (Boolean.TRUE.equals(met)) {
+                return true;
+            }
+            if (remaining <= MAX_CALL_MILLIS) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package AutomationFramework.interactions;
+
+import java.util.Map;
+
+/***
+ * State of one &lt;option&gt; of a native dropdown, read for all options at once by Dropdowns.readOptions
+ */
+public class DropdownOption {
+    static final String READ_SCRIPT =
+            "var select = arguments[0];" +
+            "return Array.prototype.map.call(select.options, function (o) {" +
+            "  return { index: o.index, value: o.value, text: o.text.trim(), selected: o.selected, disabled: o.disabled };" +
+            "});";
+
+    private final int       index;
+    private final String    value;
+    private final String    text;
+    private final boolean   selected;
+    private final boolean   disabled;
+
+    /***
+     * Builds an option from one entry of the read script result
+     *
+     * @param values            - values read in the page
+     */
+    DropdownOption(Map<?, ?> values) {
+        this.index    = values.get("index") instanceof Number ? ((Number) values.get("index")).intValue() : -1;
+        this.value    = values.get("value") == null ? "" : String.valueOf(values.get("value"));
+        this.text     = values.get("text") == null ? "" : String.valueOf(values.get("text"));
+        this.selected = Boolean.TRUE.equals(values.get("selected"));
+        this.disabled = Boolean.TRUE.equals(values.get("disabled"));
+    }
+
+    /***
+     * @return                  - position of the option in the dropdown
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /***
+     * @return                  - value attribute of the option
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /***
+     * @return                  - text of the option, trimmed
+     */
+    public String getText() {
+        return text;
+    }
+
+    /***
+     * @return                  - true if the option is selected
+     */
+    public boolean isSelected() {
+        return selected;
+    }
+
+    /***
+     * @return                  - true if the option is disabled
+     */
+    public boolean isDisabled() {
+        return disabled;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s)%s%s", text, value, selected ? " selected" : "", disabled ? " disabled" : "");
+    }
+}
@@ -1,21 +1,50 @@
 package AutomationFramework.interactions;
 
 import AutomationFramework.extensions.IEnumerableExtensions;
+import AutomationFramework.runner.WebDriverManager;
 import AutomationFramework.utils.AFCustomAsserts;
 import AutomationFramework.utils.Logger;
+import AutomationFramework.utils.RetryPolicy;
+import AutomationFramework.utils.Trace;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.Select;
 
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /***
  * Abstract class responsible for dropdown interactions
+ *
+ * Native &lt;select&gt; dropdowns are read and set with one script each: readOptions returns every option
+ * (value, text, selected, disabled) at once instead of a getText() call per option, and a selection sets the option,
+ * fires input / change and reads the result back in the same call.
  */
 public abstract class Dropdowns {
+    private static final String SELECT_SCRIPT =
+            "var select = arguments[0], mode = arguments[1], key = arguments[2], match = -1, i, o;" +
+            "for (i = 0; i < select.options.length && match < 0; i++) {" +
+            "  o = select.options[i];" +
+            "  if (mode === 'text' ? o.text.trim().toLowerCase() === String(key).trim().toLowerCase() : o.value === key) { match = i; }" +
+            "}" +
+            "if (match < 0) { return { matched: null, selected: null }; }" +
+            "o = select.options[match];" +
+            "if (!o.selected && !o.disabled) {" +
+            "  if (select.multiple) { o.selected = true; } else { select.selectedIndex = match; }" +
+            "  select.dispatchEvent(new Event('input', { bubbles: true }));" +
+            "  select.dispatchEvent(new Event('change', { bubbles: true }));" +
+            "}" +
+            "var s = select.selectedIndex >= 0 ? select.options[select.selectedIndex] : null;" +
+            "return { matched: o.text.trim(), selected: s ? s.text.trim() : null };";
+
+    // the dropdown was re-rendered, look it up again by its xpath
+    private static final RetryPolicy STALE_RETRY = RetryPolicy.builder("dropdown.stale")
+            .maxAttempts(2)
+            .retryOn(StaleElementReferenceException.class)
+            .build();
 
     /**
      * Selects a value from a drop down menu based on text
@@ -29,28 +58,53 @@ public abstract class Dropdowns {
 
 
     /**
-     * Selects a value from a drop down menu based on text
+     * Selects a value from a drop down menu based on text (case insensitive), and verifies the selection
+     * in the same call
      *
      * @param el            - drop down menu element
      * @param text          - text to select
      */
     public static void selectByText(WebElement el, String text) throws Exception {
-        Select select = new Select(el);
+        select(el, "text", text);
+    }
+
+    /**
+     * Selects a value from a drop down menu based on the option value, and verifies the selection in the same call
+     *
+     * @param el            - drop down menu element
+     * @param value         - value attribute of the option to select
+     */
+    public static void selectByValue(WebElement el, String value) throws Exception {
+        select(el, "value", value);
+    }
 
-        final String[] selectedOption = new String[1];
-        select.getOptions().forEach(elem -> {
-            if (elem.getText().trim().toLowerCase().equals(text.toLowerCase())) {
-                selectedOption[0] = elem.getText();
-                elem.click();
+    /**
+     * Selects the matching option, fires input / change and checks the dropdown shows it, in one script
+     *
+     * @param el            - drop down menu element
+     * @param mode          - "text" or "value"
+     * @param key           - text or value to select
+     * @throws Exception    - if no option matches or the selection didn't stick
+     */
+    private static void select(WebElement el, String mode, String key) throws Exception {
+        try (Trace.Span span = Trace.span("dropdown select", key)) {
+            WebElement[] dropdown = {el};
+            Map<?, ?> result = STALE_RETRY.execute(attempt -> {
+                if (attempt > 1) {
+                    Logger.info("Retrying to get the element after StaleElementReferenceException");
+                    By by = ElementLocators.locatorOf(el);
+                    // the cache would hand the same stale element back
+                    ElementCache.forget(by);
+                    dropdown[0] = by != null ? Elements.findElement(by) : ElementUtils.refreshElement(el);
+                }
+                return (Map<?, ?>) ((JavascriptExecutor) WebDriverManager.getWebDriver()).executeScript(SELECT_SCRIPT, dropdown[0], mode, key);
+            });
+
+            if (result == null || result.get("matched") == null) {
+                Logger.exception(String.format("No option with %s '%s' in the dropdown!", mode, key));
+                return;
             }
-        });
-
-        try{
-            AFCustomAsserts.VerifyEqual(selectedOption[0], select.getFirstSelectedOption().getText());
-        } catch (StaleElementReferenceException staleElEx){
-            Logger.warn(staleElEx.getMessage());
-            Logger.info("Retrying to get the element after StaleElementReferenceException");
-            selectByText(Elements.findElement(By.xpath(Elements.getXpath(el))), text);
+            AFCustomAsserts.VerifyEqual(String.valueOf(result.get("matched")), String.valueOf(result.get("selected")));
         }
     }
 
@@ -61,7 +115,10 @@ public abstract class Dropdowns {
      * @throws Exception    - throws exception if element is not found
      */
     public static void selectRandomOption(String locator) throws Exception {
-        List<String> options = getAllOptionValues(locator).stream().filter(opt -> !opt.trim().equalsIgnoreCase("select") && !opt.toLowerCase().contains("select"))
+        WebElement dropdown = Elements.findElement(locator);
+        List<DropdownOption> all = readOptions(dropdown);
+        List<String> options = all.stream().map(DropdownOption::getText)
+                .filter(opt -> !opt.trim().equalsIgnoreCase("select") && !opt.toLowerCase().contains("select"))
                 .collect(Collectors.toList());
 
         Logger.info("Available options in dropdown: " + options.toString());
@@ -70,20 +127,16 @@ public abstract class Dropdowns {
             Logger.exception("There's only one available option under the dropdown options!");
         }
 
-        int tries = 10;
-        String opt = IEnumerableExtensions.random(options).toString();
-
-        while (opt.equalsIgnoreCase(getSelectedOption(locator)) && tries > 0) {
-            opt = IEnumerableExtensions.random(options).toString();
-            tries--;
-        }
-
-        if (tries == 0) {
+        // pick among the other options instead of drawing until the pick differs from the selected one
+        String selectedOption = selectedText(all);
+        List<String> others = options.stream().filter(opt -> !opt.equalsIgnoreCase(selectedOption)).collect(Collectors.toList());
+        if (others.isEmpty()) {
             Logger.exception("Random couldn't get a different option than the already selected one!");
         }
+        String opt = IEnumerableExtensions.random(others).toString();
 
         Logger.info(String.format("Selecting '%s' option from dropdown.", opt));
-        selectByText(locator, opt);
+        selectByText(dropdown, opt);
     }
 
     /**
@@ -94,8 +147,10 @@ public abstract class Dropdowns {
      * @throws Exception    - throws exception if element is not found
      */
     public static void selectRandomOption(String locator, Predicate<String> condition) throws Exception {
-        String selectedOption = getSelectedOption(locator);
-        List<String> options = getAllOptionValues(locator).stream()
+        WebElement dropdown = Elements.findElement(locator);
+        List<DropdownOption> all = readOptions(dropdown);
+        String selectedOption = selectedText(all);
+        List<String> options = all.stream().map(DropdownOption::getText)
                 .filter(opt -> !opt.trim().equals(selectedOption))
                 .filter(condition)
                 .collect(Collectors.toList());
@@ -105,7 +160,32 @@ public abstract class Dropdowns {
         String opt = IEnumerableExtensions.random(options).toString();
 
         Logger.info(String.format("Selecting '%s' option from dropdown.", opt));
-        selectByText(locator, opt);
+        selectByText(dropdown, opt);
+    }
+
+    /**
+     * Reads every option of a native dropdown (value, text, selected, disabled) with one script
+     *
+     * @param el            - dropdown element
+     * @return              - the options, in document order
+     */
+    @SuppressWarnings("unchecked")
+    public static List<DropdownOption> readOptions(WebElement el) {
+        try (Trace.Span span = Trace.span("dropdown readOptions")) {
+            List<Map<?, ?>> values = (List<Map<?, ?>>) ((JavascriptExecutor) WebDriverManager.getWebDriver())
+                    .executeScript(DropdownOption.READ_SCRIPT, el);
+            return values.stream().map(DropdownOption::new).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads every option of a native dropdown, see readOptions(WebElement)
+     *
+     * @param locator       - selector of dropdown element
+     * @return              - the options, in document order
+     */
+    public static List<DropdownOption> readOptions(String locator) throws Exception {
+        return readOptions(Elements.findElement(locator));
     }
 
     /**
@@ -114,8 +194,7 @@ public abstract class Dropdowns {
      * @param locator       - selector of dropdown element
      */
     public static List<String> getAllOptionValues(String locator) throws Exception {
-        Select select = new Select(Elements.findElement(locator));
-        return select.getOptions().stream().map(e -> e.getText().trim()).collect(Collectors.toList());
+        return getAllOptionValues(Elements.findElement(locator));
     }
 
     /**
@@ -124,8 +203,7 @@ public abstract class Dropdowns {
      * @param by            - selenium by
      */
     public static List<String> getAllOptionValues(By by) throws Exception {
-        Select select = new Select(Elements.findElement(by));
-        return select.getOptions().stream().map(e -> e.getText().trim()).collect(Collectors.toList());
+        return getAllOptionValues(Elements.findElement(by));
     }
 
     /**
@@ -134,8 +212,7 @@ public abstract class Dropdowns {
      * @param el            - selector of dropdown element
      */
     public static List<String> getAllOptionValues(WebElement el) throws Exception {
-        Select select = new Select(el);
-        return select.getOptions().stream().map(e -> e.getText().trim()).collect(Collectors.toList());
+        return readOptions(el).stream().map(DropdownOption::getText).collect(Collectors.toList());
     }
 
     /**
@@ -154,9 +231,22 @@ public abstract class Dropdowns {
      *
      * @param el            - dropdown webelement
      * @return              - return the selected option
+     * @throws org.openqa.selenium.NoSuchElementException if no option is selected
      */
     public static String getSelectedOption(WebElement el) {
-        return new Select(el).getFirstSelectedOption().getText();
+        String selected = selectedText(readOptions(el));
+        if (selected == null) {
+            throw new org.openqa.selenium.NoSuchElementException("No options are selected");
+        }
+        return selected;
+    }
+
+    /**
+     * @param options       - options of a dropdown
+     * @return              - text of the first selected option, null if none is selected
+     */
+    private static String selectedText(List<DropdownOption> options) {
+        return options.stream().filter(DropdownOption::isSelected).map(DropdownOption::getText).findFirst().orElse(null);
     }
 
     /**
@@ -167,7 +257,6 @@ public abstract class Dropdowns {
      */
     public static String getLastOption(By by) throws Exception {
         List<String> allDropdownElements = getAllOptionValues(by);
-        int dropdownSize = getAllOptionValues(by).size()-1;
-        return allDropdownElements.get(dropdownSize);
+        return allDropdownElements.get(allDropdownElements.size() - 1);
     }
 }
@@ -0,0 +1,185 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.runner.WebDriverManager;
+import AutomationFramework.utils.AppConfig;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Cache of the elements found by Elements.findElement, keyed by locator and scoped to the current document.
+ *
+ * Page objects look up the same elements again and again while the page doesn't change; a cached element is
+ * returned without any remote call. Each thread (so each browser session) has its own scope, dropped when:
+ *  - the test navigates (WebDriverManager.openURLPage) or gets a new session
+ *  - the document version probe sees a new document, e.g. after a click submitted a form. The probe is one small
+ *    script which tags the window with an id; it runs at most once per elements.cache.probeIntervalMillis, not on
+ *    every hit.
+ * A single page app re-rendering part of the page keeps its document, so a hit can be stale: it is verified when
+ * it is used, the caller catching the StaleElementReferenceException forgets the entry and looks it up again.
+ * elements.cache.verifyHits checks every hit up front instead (one small script per hit, off by default since it
+ * costs as much as a script lookup).
+ */
+public abstract class ElementCache {
+    private static final String DOCUMENT_ID_SCRIPT =
+            "if (!window.__afDocumentId) { window.__afDocumentId = Date.now() + '-' + Math.random(); }" +
+            "return window.__afDocumentId;";
+    private static final String USABLE_SCRIPT = ScriptLookup.FIND_FUNCTIONS +
+            "var e = arguments[0]; return e.isConnected && afVisible(e);";
+
+    private static final boolean    ENABLED              = AppConfig.getBoolean("elements.cache.enabled", true);
+    private static final long       PROBE_INTERVAL_NANOS = AppConfig.getLong("elements.cache.probeIntervalMillis", 1000) * 1000000L;
+    private static final boolean    VERIFY_HITS          = AppConfig.getBoolean("elements.cache.verifyHits", false);
+
+    private static final ThreadLocal<Scope> scope = ThreadLocal.withInitial(Scope::new);
+
+    private static final LongAdder  hits            = new LongAdder();
+    private static final LongAdder  misses          = new LongAdder();
+    private static final LongAdder  invalidations   = new LongAdder();
+
+    /***
+     * Elements cached for one document of one session
+     */
+    private static class Scope {
+        final Map<By, WebElement>   elements = new HashMap<>();
+        String                      documentId;
+        long                        lastProbe;
+    }
+
+    /***
+     * Gets a cached element
+     *
+     * @param by                - element locator
+     * @return                  - the cached element or null if it's not cached for the current document
+     */
+    static WebElement get(By by) {
+        if (!ENABLED) {
+            return null;
+        }
+
+        Scope current = scope.get();
+        if (current.elements.isEmpty()) {
+            misses.increment();
+            return null;
+        }
+
+        if (System.nanoTime() - current.lastProbe > PROBE_INTERVAL_NANOS) {
+            probe(current);
+        }
+
+        WebElement element = current.elements.get(by);
+        if (element != null && VERIFY_HITS && !isUsable(element)) {
+            current.elements.remove(by);
+            element = null;
+        }
+        if (element == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return element;
+    }
+
+    /***
+     * @param element           - cached element
+     * @return                  - true if the element is still attached to the document and visible
+     */
+    private static boolean isUsable(WebElement element) {
+        try {
+            return Boolean.TRUE.equals(((JavascriptExecutor) WebDriverManager.getWebDriver()).executeScript(USABLE_SCRIPT, element));
+        }
+        catch (StaleElementReferenceException e) {
+            return false;
+        }
+    }
+
+    /***
+     * Caches an element found for the current document
+     *
+     * @param by                - element locator
+     * @param element           - found element
+     */
+    static void put(By by, WebElement element) {
+        if (!ENABLED || element == null) {
+            return;
+        }
+
+        Scope current = scope.get();
+        if (current.documentId == null) {
+            probe(current);
+        }
+        current.elements.put(by, element);
+    }
+
+    /***
+     * Drops the element cached by the current thread for a locator (e.g. it turned out to be stale)
+     *
+     * @param by                - element locator
+     */
+    public static void forget(By by) {
+        if (by != null && scope.get().elements.remove(by) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /***
+     * Drops every element cached by the current thread (navigation, new session)
+     */
+    public static void invalidate() {
+        Scope current = scope.get();
+        if (!current.elements.isEmpty()) {
+            invalidations.increment();
+        }
+        current.elements.clear();
+        current.documentId = null;
+    }
+
+    /***
+     * Checks the document version and drops the cached elements if the document changed
+     *
+     * @param current           - scope of the current thread
+     */
+    private static void probe(Scope current) {
+        Object documentId = ((JavascriptExecutor) WebDriverManager.getWebDriver()).executeScript(DOCUMENT_ID_SCRIPT);
+        current.lastProbe = System.nanoTime();
+        if (current.documentId != null && !current.documentId.equals(documentId)) {
+            invalidate();
+        }
+        current.documentId = String.valueOf(documentId);
+    }
+
+    /***
+     * @return                  - number of lookups served from the cache
+     */
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    /***
+     * @return                  - number of lookups which had to query the browser
+     */
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    /***
+     * @return                  - number of times a thread's cached elements were dropped
+     */
+    public static long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /***
+     * @return                  - ratio of lookups served from the cache, 0 if there was no lookup yet
+     */
+    public static double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+}
@@ -0,0 +1,85 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.utils.AppConfig;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebElement;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/***
+ * Locator each element was found with, keyed by the element id.
+ *
+ * Elements returned by a script (ScriptLookup, bulk reads) have no "found by" in their toString, so the framework
+ * keeps the By itself: describing an element, looking it up again after a StaleElementReferenceException or
+ * attributing its commands to a locator goes through here instead of parsing toString().
+ * Ids are unique per session; the oldest entries are dropped past elements.locators.maxSize.
+ */
+public abstract class ElementLocators {
+    private static final int MAX_SIZE = AppConfig.getInt("elements.locators.maxSize", 10000);
+
+    private static final Map<String, By> locators = Collections.synchronizedMap(new LinkedHashMap<String, By>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, By> eldest) {
+            return size() > MAX_SIZE;
+        }
+    });
+
+    /***
+     * Remembers the locator an element was found with
+     *
+     * @param element           - found element
+     * @param by                - locator used to find it
+     */
+    static void remember(WebElement element, By by) {
+        String id = idOf(element);
+        if (id != null && by != null) {
+            locators.put(id, by);
+        }
+    }
+
+    /***
+     * @param element           - web element
+     * @return                  - the locator the framework found it with, null if unknown
+     */
+    public static By locatorOf(WebElement element) {
+        String id = idOf(element);
+        return id == null ? null : locators.get(id);
+    }
+
+    /***
+     * @param elementId         - remote element id
+     * @return                  - the locator the framework found the element with, null if unknown
+     */
+    public static By locatorOf(String elementId) {
+        return elementId == null ? null : locators.get(elementId);
+    }
+
+    /***
+     * Describes an element by its locator, without the session id
+     *
+     * @param element           - web element
+     * @return                  - locator description, e.g. "By.id: userName"; the locator part of toString() if the
+     *                            framework didn't find the element itself
+     */
+    public static String describe(WebElement element) {
+        By by = locatorOf(element);
+        if (by != null) {
+            return by.toString();
+        }
+
+        String description = String.valueOf(element);
+        int arrow = description.lastIndexOf("->");
+        if (arrow < 0) {
+            return description;
+        }
+        description = description.substring(arrow + 2).trim();
+        return description.endsWith("]") ? description.substring(0, description.length() - 1) : description;
+    }
+
+    private static String idOf(WebElement element) {
+        return element instanceof RemoteWebElement ? ((RemoteWebElement) element).getId() : null;
+    }
+}
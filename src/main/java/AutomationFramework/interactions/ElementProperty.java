@@ -0,0 +1,13 @@
+package AutomationFramework.interactions;
+
+/***
+ * Properties that can be read in bulk with Elements.readProperties
+ */
+public enum ElementProperty {
+    TEXT,           // visible text, like WebElement.getText()
+    DISPLAYED,      // like WebElement.isDisplayed()
+    ENABLED,        // like WebElement.isEnabled()
+    SELECTED,       // like WebElement.isSelected()
+    RECT,           // position and size in the document, like WebElement.getRect()
+    ATTRIBUTES      // the attribute names given to readProperties, like WebElement.getAttribute(name)
+}
@@ -0,0 +1,146 @@
+package AutomationFramework.interactions;
+
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * State of one element read by Elements.readProperties. Only the requested properties are filled,
+ * the others keep their default (null / false).
+ */
+public class ElementSnapshot {
+    static final String READ_SCRIPT = ScriptLookup.FIND_FUNCTIONS +
+            "var items = arguments[0], byLocator = arguments[1], props = arguments[2], attrs = arguments[3];" +
+            "function has(p) { return props.indexOf(p) >= 0; }" +
+            "return items.map(function (item) {" +
+            "  var e = item, i;" +
+            "  if (byLocator) {" +
+            "    var all = afFind(item[0], item[1]);" +
+            "    e = null;" +
+            "    for (i = 0; i < all.length && !e; i++) { if (afVisible(all[i])) { e = all[i]; } }" +
+            "    if (!e && all.length) { e = all[0]; }" +
+            "  }" +
+            "  if (!e) { return null; }" +
+            "  var r = { element: e }, visible = afVisible(e);" +
+            "  if (has('TEXT')) { r.text = visible ? (e.innerText || '').trim() : ''; }" +
+            "  if (has('DISPLAYED')) { r.displayed = visible; }" +
+            "  if (has('ENABLED')) { r.enabled = !e.disabled; }" +
+            "  if (has('SELECTED')) { r.selected = !!(e.checked || e.selected); }" +
+            "  if (has('RECT')) {" +
+            "    var b = e.getBoundingClientRect();" +
+            "    r.rect = [Math.round(b.left + window.pageXOffset), Math.round(b.top + window.pageYOffset)," +
+            "              Math.round(b.width), Math.round(b.height)];" +
+            "  }" +
+            "  if (has('ATTRIBUTES')) {" +
+            "    r.attributes = {};" +
+            "    attrs.forEach(function (a) {" +
+            "      var p = e[a];" +
+            "      r.attributes[a] = (p !== undefined && p !== null && typeof p !== 'object' && typeof p !== 'function') ? String(p) : e.getAttribute(a);" +
+            "    });" +
+            "  }" +
+            "  return r;" +
+            "});";
+
+    private final boolean               found;
+    private final WebElement            element;
+    private final String                text;
+    private final boolean               displayed;
+    private final boolean               enabled;
+    private final boolean               selected;
+    private final Rectangle             rect;
+    private final Map<String, String>   attributes;
+
+    /***
+     * Builds a snapshot from one entry of the read script result
+     *
+     * @param values            - values read in the page, null if the element was not found
+     */
+    @SuppressWarnings(value = "unchecked")
+    ElementSnapshot(Map<String, Object> values) {
+        this.found      = values != null;
+        values          = values == null ? Collections.emptyMap() : values;
+        this.element    = (WebElement) values.get("element");
+        this.text       = (String) values.get("text");
+        this.displayed  = Boolean.TRUE.equals(values.get("displayed"));
+        this.enabled    = Boolean.TRUE.equals(values.get("enabled"));
+        this.selected   = Boolean.TRUE.equals(values.get("selected"));
+
+        List<Number> r  = (List<Number>) values.get("rect");
+        this.rect       = r == null ? null : new Rectangle(r.get(0).intValue(), r.get(1).intValue(), r.get(3).intValue(), r.get(2).intValue());
+
+        Map<String, Object> attrs = (Map<String, Object>) values.get("attributes");
+        Map<String, String> copy = new HashMap<>();
+        if (attrs != null) {
+            attrs.forEach((name, value) -> copy.put(name, value == null ? null : String.valueOf(value)));
+        }
+        this.attributes = Collections.unmodifiableMap(copy);
+    }
+
+    /***
+     * @return                  - false if the locator didn't match any element
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /***
+     * @return                  - the element the snapshot was read from, null if not found
+     */
+    public WebElement getElement() {
+        return element;
+    }
+
+    /***
+     * @return                  - visible text, like WebElement.getText()
+     */
+    public String getText() {
+        return text;
+    }
+
+    /***
+     * @return                  - true if the element is displayed
+     */
+    public boolean isDisplayed() {
+        return displayed;
+    }
+
+    /***
+     * @return                  - true if the element is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /***
+     * @return                  - true if the checkbox, radio or option is selected
+     */
+    public boolean isSelected() {
+        return selected;
+    }
+
+    /***
+     * @return                  - position and size of the element in the document
+     */
+    public Rectangle getRect() {
+        return rect;
+    }
+
+    /***
+     * @param name              - attribute name, must be one of the names requested
+     * @return                  - the attribute value, null if the element doesn't have it
+     */
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public String toString() {
+        return found ? String.format("text='%s', displayed=%s, enabled=%s, selected=%s, rect=%s, attributes=%s",
+                text, displayed, enabled, selected, rect == null ? null : rect.getPoint() + " " + rect.getDimension(), attributes)
+                : "element not found";
+    }
+}
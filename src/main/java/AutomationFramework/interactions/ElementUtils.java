@@ -2,6 +2,7 @@ package AutomationFramework.interactions;
 
 import AutomationFramework.runner.WebDriverManager;
 import AutomationFramework.utils.Logger;
+import AutomationFramework.utils.Metrics;
 import org.openqa.selenium.By;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebElement;
@@ -15,21 +16,35 @@ import java.util.List;
   *  Source: http://www.amitrawat.tech/post/mystery-of-stale-element-reference-exception/
   */
 public class ElementUtils {
+    // every refresh is an element that went stale
+    private static final Metrics.Counter STALE_ELEMENTS   = Metrics.counter("elements.stale");
+    private static final Metrics.Counter REFRESH_FAILURES = Metrics.counter("elements.refresh.failures");
 
     /***
      * Refresh a specified web element and returns it if possible.
+     * The element is looked up again with the locator the framework found it with (see ElementLocators), or with the
+     * locator chain of its toString() for elements found by plain WebDriver calls.
      *
      * @param elem              - Web element object
      * @param params            - Optional parameters for filtering/position
-     * @return                  - The refreshed web element
+     * @return                  - The refreshed web element, null if it can't be found again
      */
     public static WebElement refreshElement(WebElement elem, Object... params) {
+        By by = ElementLocators.locatorOf(elem);
+        if (by != null) {
+            return refreshElement(by, params);
+        }
+
         Object refreshedElem = null;
+        STALE_ELEMENTS.increment();
         try {
             String[] locators = elem.toString().split("->");
             for (String s : locators) {
                 String newLocator = s.trim().replaceAll("^\\[+", "").replaceAll("]+$", "");
                 String[] parts = newLocator.split(": ");
+                if (parts.length < 2) {
+                    throw new IllegalArgumentException("No locator known for element " + elem);
+                }
                 String key = parts[0];
                 String value = parts[1];
                 int leftBracketsCount = value.length() - value.replace("[", "").length();
@@ -42,10 +57,12 @@ public class ElementUtils {
                 }
             }
         } catch (Exception e) {
+            REFRESH_FAILURES.increment();
             Logger.error("Can not refresh element: \n EXCEPTION: " + e.getMessage());
+            return null;
         }
 
-        Logger.info("Refreshed element: " + elem.toString());
+        Logger.info("Refreshed element: " + ElementLocators.describe(elem));
         return (WebElement) refreshedElem;
     }
 
@@ -55,33 +72,25 @@ public class ElementUtils {
      *
      * @param by                - By selector to use
      * @param params            - Optional parameters for filtering/position
-     * @return                  - The refreshed web element
+     * @return                  - The refreshed web element, null if it can't be found again
      */
     public static WebElement refreshElement(By by, Object... params) {
-        Object refreshedElem = null;
+        STALE_ELEMENTS.increment();
+        WebElement refreshedElem = null;
         try {
-            String[] locators = Elements.findElement(by).toString().split("->");
-            for (String s : locators) {
-                String newLocator = s.trim().replaceAll("^\\[+", "").replaceAll("]+$", "");
-                String[] parts = newLocator.split(": ");
-                String key = parts[0];
-                String value = parts[1];
-                int leftBracketsCount = value.length() - value.replace("[", "").length();
-                int rightBracketscount = value.length() - value.replace("]", "").length();
-                if (leftBracketsCount - rightBracketscount == 1) { value = value + "]"; }
-                if (refreshedElem == null) {
-                    refreshedElem = WebDriverManager.getWebDriver();
-                } else {
-                    refreshedElem = getWebElement(refreshedElem, key, value, params);
-                }
-            }
+            ElementCache.forget(by);
+            refreshedElem = params.length <= 0 ? Elements.findElement(by, false) : getWebElement(WebDriverManager.getWebDriver(), by, params);
         } catch (Exception e) {
             Logger.error("Can not refresh element: \n EXCEPTION: " + e.getMessage());
         }
 
-        assert refreshedElem != null;
-        Logger.info("Refreshed element: " + refreshedElem.toString());
-        return (WebElement) refreshedElem;
+        if (refreshedElem == null) {
+            REFRESH_FAILURES.increment();
+            Logger.error("Can not refresh element: " + by);
+            return null;
+        }
+        Logger.info("Refreshed element: " + by);
+        return refreshedElem;
     }
 
     /***
@@ -107,11 +116,29 @@ public class ElementUtils {
      * @param value             - the value same as above
      * @param params            - optional parameters for filtering/position
      * @return                  - return the actual webElement
+     * @throws IllegalArgumentException if key and value don't make a selenium By
      */
     private static WebElement getWebElement(Object lastObject, String key, String value, Object... params) {
+        By by;
+        try {
+            by = getBy(key, value);
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Invalid locator '%s: %s'", key, value), e);
+        }
+        return getWebElement(lastObject, by, params);
+    }
+
+    /***
+     * Gets the web element found by a locator under the last object.
+     *
+     * @param lastObject        - The last object provided (the driver or a parent element)
+     * @param by                - the locator
+     * @param params            - optional parameters for filtering/position
+     * @return                  - return the actual webElement
+     */
+    private static WebElement getWebElement(Object lastObject, By by, Object... params) {
         List<WebElement> elements = null;
         try {
-            By by = getBy(key, value);
             Method m = getCaseInsensitiveDeclaredMethod(lastObject, "findElements");
             elements = (List<WebElement>) m.invoke(lastObject, by);
         } catch (InvocationTargetException e) {
@@ -121,6 +148,7 @@ public class ElementUtils {
         }
         assert elements != null;
         WebElement element = params.length <= 0 ? elements.get(0) : elements.get((Integer) params[0]);
+        ElementLocators.remember(element, by);
         if (params.length > 1) {
             return (Boolean)params[1] ? element.findElement(By.xpath("..")) : element;
         }
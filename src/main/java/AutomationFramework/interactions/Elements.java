@@ -1,33 +1,81 @@
 package AutomationFramework.interactions;
 
+import AutomationFramework.exceptions.SessionDeadException;
 import AutomationFramework.runner.WebDriverManager;
+import AutomationFramework.utils.AppConfig;
 import AutomationFramework.utils.Logger;
-import AutomationFramework.utils.Utils;
+import AutomationFramework.utils.Metrics;
+import AutomationFramework.utils.RetryPolicy;
+import AutomationFramework.utils.Trace;
 import org.openqa.selenium.*;
-import org.openqa.selenium.Point;
-import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.pagefactory.ByChained;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.awt.Dimension;
-import java.awt.*;
 import java.time.Duration;
 import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class Elements {
+    private static final Metrics.Histogram  FIND_LATENCY = Metrics.histogram("elements.find.latency");
+    private static final Metrics.Counter    FIND_MISSES  = Metrics.counter("elements.find.misses");
+    private static final Metrics.Counter    CACHE_HITS   = Metrics.counter("elements.cache.hits");
+    private static final boolean SCRIPT_LOOKUP = AppConfig.getString("elements.lookup.mode", "script").equalsIgnoreCase("script");
+
+    // the retries stop with the operation budget, the caller has given up by then
+    private static final RetryPolicy FIND_ELEMENTS_RETRY = RetryPolicy.builder("elements.find")
+            .maxAttempts(3)
+            .backoff(100, 400)
+            .retryOn(WebDriverException.class)
+            .giveUpWhen(WaitBudget::isExhausted)
+            .build();
+
+    private static final String HOVER_SCRIPT =
+            "var el = arguments[0];" +
+            "el.scrollIntoView({ block: 'center', inline: 'center' });" +
+            "var r = el.getBoundingClientRect(), x = r.left + r.width / 2, y = r.top + r.height / 2;" +
+            "var init = { bubbles: true, cancelable: true, view: window, clientX: x, clientY: y, pointerType: 'mouse', isPrimary: true };" +
+            "var noBubble = { bubbles: false, cancelable: false, view: window, clientX: x, clientY: y, pointerType: 'mouse', isPrimary: true };" +
+            "var Pointer = window.PointerEvent || MouseEvent;" +
+            "el.dispatchEvent(new Pointer('pointerover', init));" +
+            "el.dispatchEvent(new Pointer('pointerenter', noBubble));" +
+            "el.dispatchEvent(new MouseEvent('mouseover', init));" +
+            "el.dispatchEvent(new MouseEvent('mouseenter', noBubble));" +
+            "el.dispatchEvent(new Pointer('pointermove', init));" +
+            "el.dispatchEvent(new MouseEvent('mousemove', init));";
 
     /***
      * Creates the By selector based on a predefined names (class, classname, id, css, xpath or name)
+     * The resolved selector is cached (see LocatorCache), so a locator name is resolved only once.
      *
      * @param selector          - The unique identifier of the object (id name, class name etc)
      * @return                  - Returns the selector based on given (By.id, By.className etc)
      * @throws Exception        - Throws exception if element is null or if we do not have a valid selector (classname, id, css etc)
      */
     public static By by(String selector) throws Exception {
+        By by = LocatorCache.get(selector);
+        if (by == null) {
+            by = resolveBy(selector);
+            LocatorCache.put(selector, by);
+        }
+        return by;
+    }
+
+    /***
+     * Resolves a locator name to its By selector using the page element definition
+     *
+     * @param selector          - The unique identifier of the object (id name, class name etc)
+     * @return                  - Returns the selector based on given (By.id, By.className etc)
+     * @throws Exception        - Throws exception if element is null or if we do not have a valid selector (classname, id, css etc)
+     */
+    private static By resolveBy(String selector) throws Exception {
         PageElement pageElement = new PageElement(selector);
         if (pageElement.elementBy == null) {
             Logger.exception("null selector provided!");
@@ -45,7 +93,8 @@ public class Elements {
             case "id": {
                 return By.id(pageElement.elementSelector);
             }
-            case "css": {
+            case "css":
+            case "cssselector": {
                 return By.cssSelector(pageElement.elementSelector);
             }
             case "xpath": {
@@ -66,13 +115,14 @@ public class Elements {
      * @param selector          - The name of the selector id, name, xpath etc (String)
      * @return                  - return true if specified selector is within our list otherwise returns false
      */
-    private static boolean isValidLocator(String selector) {
-        switch (selector) {
+    static boolean isValidLocator(String selector) {
+        switch (selector.toLowerCase()) {
             case "id":
             case "name":
             case "xpath":
             case "class":
-            case "cssSelector":
+            case "classname":
+            case "cssselector":
             case "css":
                 return true;
             default:
@@ -109,7 +159,7 @@ public class Elements {
                 if (throwException) {
                     throw new NullPointerException();
                 }
-                Logger.debug(String.format("Element has no %s attribute", attr));
+                Logger.debug(() -> String.format("Element has no %s attribute", attr));
             }
             return attribute;
         }
@@ -134,7 +184,7 @@ public class Elements {
                 if (throwException) {
                     throw new NullPointerException();
                 }
-                Logger.debug(String.format("Element has no %s attribute", attr));
+                Logger.debug(() -> String.format("Element has no %s attribute", attr));
             }
             return attribute;
         }
@@ -179,6 +229,9 @@ public class Elements {
 
     /***
      * Find the element on the web page using the provided By (By.xpath("element"))
+     * Elements already found in the current document are served from the ElementCache without any remote call.
+     * With elements.lookup.mode=script (default) the lookup is done in one round trip (see ScriptLookup),
+     * otherwise or if the selector can't be evaluated in the page, the classic WebDriver lookup is used.
      *
      * @param by                - from the element type of by
      * @param throwException    - if true and element is not found it throws NoSuchElementException
@@ -186,29 +239,60 @@ public class Elements {
      * @throws                  - throws NoSuchElementException if element does not exist
      */
     public static WebElement findElement(By by, boolean throwException) throws Exception {
-        Logger.info("Find element using selector : " + by.toString());
-        try {
+        try (Trace.Span span = Trace.span("findElement", by)) {
+            Logger.info(() -> "Find element using selector : " + by);
+            WebElement element = ElementCache.get(by);
+            if (element != null) {
+                CACHE_HITS.increment();
+                return element;
+            }
 
-            try {
-                //Waiting just a bit for the element to show up
-                Wait.waitUntilJSReady();
-                new WebDriverWait(WebDriverManager.getWebDriver(), 10).until(ExpectedConditions.presenceOfElementLocated(by));
+            long start = System.nanoTime();
+            try (WaitBudget budget = WaitBudget.open("findElement " + by)) {
+                element = lookupElement(by, throwException);
             }
             catch (Exception e) {
-                //nothing to do here
+                FIND_MISSES.increment();
+                throw e;
             }
-
-            List<WebElement> elements = WebDriverManager.getWebDriver().findElements(by);
-            if (elements == null || elements.size() == 0) {
-                throw new NoSuchElementException("Unable to locate an element using selector : " + by.toString());
+            finally {
+                FIND_LATENCY.recordSince(start);
             }
-            List<WebElement> visible = elements.stream().filter(WebElement::isDisplayed)
-                    .collect(Collectors.toList());
-            if (!visible.isEmpty()) {
-                elements = visible;
+            if (element == null) {
+                FIND_MISSES.increment();
             }
+            ElementLocators.remember(element, by);
+            ElementCache.put(by, element);
+            return element;
+        }
+    }
 
-            return elements.get(0);
+    /***
+     * Looks the element up in the browser, bypassing the element cache.
+     * A stale match (replaced in the page while it was checked) or a failed driver call is looked up again
+     * through the elements.find RetryPolicy; an element not found is not retried, the lookup already waited for it.
+     *
+     * @param by                - from the element type of by
+     * @param throwException    - if true and element is not found it throws NoSuchElementException
+     * @return                  - returns the webelement
+     * @throws                  - throws NoSuchElementException if element does not exist
+     */
+    private static WebElement lookupElement(By by, boolean throwException) throws Exception {
+        NoSuchElementException[] notFound = {null};
+        WebElement element = null;
+        try {
+            element = FIND_ELEMENTS_RETRY.execute(attempt -> {
+                if (attempt > 1) {
+                    ElementCache.forget(by);
+                }
+                try {
+                    return lookupOnce(by);
+                }
+                catch (NoSuchElementException e) {
+                    notFound[0] = e;
+                    return null;
+                }
+            });
         }
         /**
          * StaleElementReferenceException - A stale element reference exception is thrown in one of two cases, the first being more common than the second:
@@ -221,18 +305,72 @@ public class Elements {
          */
         catch (StaleElementReferenceException e) {
             Logger.warn(e.getMessage());
-            ElementUtils.refreshElement(by);
-            findElement(by, throwException);
+            ElementCache.forget(by);
+            if (throwException) {
+                throw e;
+            }
+            return null;
         }
-        catch (NoSuchElementException ex) {
+
+        if (element == null) {
             if (throwException) {
                 Logger.exception("No element found with selector: " + by.toString());
             }
             Logger.warn("No element found with selector: " + by.toString());
-            Logger.warn("Unable to find element: " + ex);
+            Logger.warn("Unable to find element: " + notFound[0]);
+        }
+        return element;
+    }
+
+    /***
+     * One lookup of the element: the in-page script if possible, the classic WebDriver lookup otherwise
+     *
+     * @param by                - from the element type of by
+     * @return                  - the first visible match, or the first match if none is visible
+     * @throws NoSuchElementException if nothing matches
+     */
+    private static WebElement lookupOnce(By by) {
+        if (SCRIPT_LOOKUP && ScriptLookup.supports(by)) {
+            try {
+                WebElement element = ScriptLookup.findFirstVisible(by, WaitBudget.clampMillis(TimeUnit.SECONDS.toMillis(Wait.DEFAULT_TIMEOUT_SECONDS)));
+                if (element == null) {
+                    throw new NoSuchElementException("Unable to locate an element using selector : " + by.toString());
+                }
+                return element;
+            }
+            catch (NoSuchElementException | StaleElementReferenceException | SessionDeadException e) {
+                throw e;
+            }
+            catch (WebDriverException e) {
+                ScriptLookup.recordFallback(e.getMessage());
+            }
         }
 
-        return null;
+        try {
+            //Waiting just a bit for the element to show up
+            Wait.waitUntilJSReady();
+            Wait.until("presence " + by, Wait.DEFAULT_TIMEOUT_SECONDS, ExpectedConditions.presenceOfElementLocated(by));
+        }
+        catch (SessionDeadException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            //nothing to do here
+        }
+
+        List<WebElement> elements = WebDriverManager.getWebDriver().findElements(by);
+        if (elements == null || elements.size() == 0) {
+            throw new NoSuchElementException("Unable to locate an element using selector : " + by.toString());
+        }
+        // one script reads the visibility of every match instead of one isDisplayed() call each
+        List<ElementSnapshot> states = readProperties(elements, EnumSet.of(ElementProperty.DISPLAYED));
+        for (int i = 0; i < states.size(); i++) {
+            if (states.get(i).isDisplayed()) {
+                return elements.get(i);
+            }
+        }
+
+        return elements.get(0);
     }
 
     /***
@@ -321,18 +459,20 @@ public class Elements {
      */
     public static List<WebElement> findElements(By by, Predicate<WebElement> filter, boolean throwException) throws Exception {
         List<WebElement> elements = null;
-        Wait.waitNoMsg(ExpectedConditions.presenceOfElementLocated(by), false, 10);
-        for (int i = 0; i < 3; i++) {
+        try (WaitBudget budget = WaitBudget.open("findElements " + by); Trace.Span span = Trace.span("findElements", by)) {
+            Wait.waitNoMsg(by, DomWait.Condition.PRESENT, ExpectedConditions.presenceOfElementLocated(by), false, Wait.DEFAULT_TIMEOUT_SECONDS);
             try {
-                elements = filter != null ?
+                elements = FIND_ELEMENTS_RETRY.execute(attempt -> filter != null ?
                         WebDriverManager.getWebDriver().findElements(by).stream().filter(filter).collect(Collectors.toList()) :
-                        WebDriverManager.getWebDriver().findElements(by);
+                        WebDriverManager.getWebDriver().findElements(by));
+            }
+            catch (SessionDeadException ex) {
+                throw ex;
             }
             catch (Exception ex) {
                 if (throwException) {
                     Logger.exception("No elements found for selector: " + by.toString());
                 }
-                Utils.threadSleep(100, null);
             }
         }
 
@@ -345,6 +485,62 @@ public class Elements {
         return elements;
     }
 
+    /***
+     * Reads the given properties of many elements with a single script, instead of one remote call
+     * per element per property
+     *
+     * @param elements          - elements to read
+     * @param properties        - properties to read
+     * @param attributes        - attribute names to read when properties contains ATTRIBUTES
+     * @return                  - one snapshot per element, in the same order
+     */
+    public static List<ElementSnapshot> readProperties(List<WebElement> elements, Set<ElementProperty> properties, String... attributes) {
+        return read(elements, false, properties, attributes);
+    }
+
+    /***
+     * Looks up many locators and reads the given properties of the first visible match of each, with a single script.
+     * Only selectors that can be evaluated in the page are supported (id, name, className, cssSelector, xpath, tagName).
+     *
+     * @param locators          - locators to read
+     * @param properties        - properties to read
+     * @param attributes        - attribute names to read when properties contains ATTRIBUTES
+     * @return                  - one snapshot per locator, in the same order; isFound() is false if nothing matched
+     */
+    public static List<ElementSnapshot> readPropertiesBy(List<By> locators, Set<ElementProperty> properties, String... attributes) {
+        List<List<String>> items = new ArrayList<>();
+        for (By by : locators) {
+            String[] locator = ScriptLookup.toScriptLocator(by);
+            if (locator == null) {
+                throw new IllegalArgumentException("Selector can't be evaluated in the page: " + by);
+            }
+            items.add(Arrays.asList(locator));
+        }
+        return read(items, true, properties, attributes);
+    }
+
+    /***
+     * Runs the bulk read script
+     *
+     * @param items             - elements or [strategy, value] locators
+     * @param byLocator         - true if items are locators
+     * @param properties        - properties to read
+     * @param attributes        - attribute names to read
+     * @return                  - one snapshot per item
+     */
+    @SuppressWarnings(value = "unchecked")
+    private static List<ElementSnapshot> read(List<?> items, boolean byLocator, Set<ElementProperty> properties, String... attributes) {
+        List<String> names = properties.stream().map(Enum::name).collect(Collectors.toList());
+        List<Map<String, Object>> values = (List<Map<String, Object>>) ((JavascriptExecutor) WebDriverManager.getWebDriver())
+                .executeScript(ElementSnapshot.READ_SCRIPT, items, byLocator, names, Arrays.asList(attributes));
+
+        List<ElementSnapshot> snapshots = new ArrayList<>(values.size());
+        for (Map<String, Object> value : values) {
+            snapshots.add(new ElementSnapshot(value));
+        }
+        return snapshots;
+    }
+
     /**
      * Get a list of WebElements using chained elements
      *
@@ -421,17 +617,20 @@ public class Elements {
 
 
     public static boolean elementPresent(By by, int... timeout) { // ... Variable Arguments or varargs
-        Duration waitForLoadTimeout = Duration.ofSeconds(timeout == null || timeout.length < 1 ? 5 : timeout[0]);
+        Duration waitForLoadTimeout = Duration.ofSeconds(timeout == null || timeout.length < 1 ? Wait.SHORT_TIMEOUT_SECONDS : timeout[0]);
 
         Logger.info(String.format("Waiting %s milliseconds for '%s' element to be present in DOM...", waitForLoadTimeout.toMillis(), by.toString()));
 
         Date dateTimeBeforeWaitForLoad;
         try {
-            new WebDriverWait(WebDriverManager.getWebDriver(), timeout == null || timeout.length < 1 ? 5 : timeout[0]).until(ExpectedConditions.presenceOfElementLocated(by));
+            Wait.until(waitForLoadTimeout.getSeconds(), ExpectedConditions.presenceOfElementLocated(by));
 
             dateTimeBeforeWaitForLoad = new Date();
             Wait.waitUntilJSReady();
-            new WebDriverWait(WebDriverManager.getWebDriver(), waitForLoadTimeout.getSeconds()).until(ExpectedConditions.visibilityOfElementLocated(by));
+            Wait.until(waitForLoadTimeout.getSeconds(), ExpectedConditions.visibilityOfElementLocated(by));
+        }
+        catch (SessionDeadException e) {
+            throw e;
         }
         catch (Exception e) {
             Logger.error(String.format("Failed to wait for the element to be visible on the page since failed to validate visibility of %s within %d milliseconds.",
@@ -440,15 +639,14 @@ public class Elements {
         }
 
         long elapsed = new Date().getTime() - dateTimeBeforeWaitForLoad.getTime();
-        Logger.debug(String.format("Element displayed: %s. Found in %d milliseconds", by.toString(), elapsed));
+        Logger.debug(() -> String.format("Element displayed: %s. Found in %d milliseconds", by, elapsed));
         return true;
     }
 
 
 
     /**
-     * Uses the Robot class in order to move mouse cursor to the element
-     * regardless of the used screen resolution or browser header configuration
+     * Moves the mouse cursor to the element (hover), see moveToElement(WebElement)
      *
      * @param selector          - element to move to/hover
      * @throws Exception        - throws exception
@@ -459,8 +657,7 @@ public class Elements {
     }
 
     /**
-     * Uses the Robot class in order to move mouse cursor to the element
-     * regardless of the used screen resolution or browser header configuration
+     * Moves the mouse cursor to the element (hover), see moveToElement(WebElement)
      *
      * @param locator           - element to move to/hover
      * @throws Exception        - throws exception
@@ -471,73 +668,59 @@ public class Elements {
     }
 
     /**
-     * Uses the Robot class in order to move mouse cursor to the element
-     * regardless of the used screen resolution or browser header configuration
+     * Moves the mouse cursor to the element (hover) with a W3C pointer move.
+     * If the driver can't move there (e.g. element out of the viewport), the element is scrolled to the center
+     * of the viewport and the hover events are dispatched from a script, in the same call. Unlike a java.awt.Robot
+     * this needs no screen, so it works headless and in parallel sessions, and it never sleeps.
      *
      * @param element           - element to move to/hover
      * @throws Exception        - throws exception
      */
     public static void moveToElement(WebElement element) throws Exception {
         try {
-            Actions action = new Actions(WebDriverManager.getWebDriver());
-            action.moveToElement(element).build().perform();
-        }
-        catch (Exception ex) {
-            Logger.error(ex.getMessage());
-            Robot robot = new Robot();
-            //take screen resolution
-
-            Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-            int screenWidth = (int) screenSize.getWidth();
-            int screenHeight = (int) screenSize.getHeight();
-
-            robot.mouseMove(screenWidth / 2, screenHeight / 2);
-            //take webpage dimensions
-            int webpageWidth = ((Number) (((JavascriptExecutor) WebDriverManager.getWebDriver())
-                    .executeScript("return window.innerWidth"))).intValue();
-            int webpageHeight = ((Number) (((JavascriptExecutor) WebDriverManager.getWebDriver())
-                    .executeScript("return window.innerHeight"))).intValue();
-
-            //take only the x axis point to calculate the middle of the element
-            //browser header most likely to change, but not the horizontal part
-            //and Point will take x coord of the left side of the element not middle
-            int xMid = element.getSize().width / 2;
-
-            //get element location relative to the webpage (not screen)
-            Point coordinates = element.getLocation();
-
-            //calculate x and y based on screen resolution and webpage dimension
-            //then get to the middle of it
-            int coordinatesX = (screenWidth - webpageWidth) + coordinates.x + xMid;
-            int coordinatesY = (screenHeight - webpageHeight) + coordinates.y;
-
-            //tries 10 times to set the cursor at correct position
-            int tries = 10;
-            while (MouseInfo.getPointerInfo().getLocation().x != coordinatesX &&
-                    MouseInfo.getPointerInfo().getLocation().y != coordinatesY &&
-                    tries > 0) {
-                new Robot().mouseMove(0, 0);
-                Thread.sleep(1000);
-
-                new Robot().mouseMove(coordinatesX / 2, coordinatesY / 2);
-                tries--;
-            }
+            new ActionSequence().hover(element).perform();
+        }
+        catch (SessionDeadException | StaleElementReferenceException ex) {
+            throw ex;
+        }
+        catch (WebDriverException ex) {
+            Logger.debug(() -> "Pointer move failed, hovering from script: " + ex.getMessage());
+            hoverFromScript(element);
         }
     }
 
+    /**
+     * Scrolls the element into view and dispatches the events of a pointer entering it
+     * (pointerover, pointerenter, mouseover, mouseenter, pointermove, mousemove) at its center
+     *
+     * @param element           - element to hover
+     */
+    public static void hoverFromScript(WebElement element) {
+        ((JavascriptExecutor) WebDriverManager.getWebDriver()).executeScript(HOVER_SCRIPT, element);
+    }
 
     /**
-     * Gets the xpath of an WebElement
+     * Gets the selector value of the locator an WebElement was found with (the xpath for a By.xpath)
      *
      * @param elem          - WebElement to get the xpath from
      * @return              - xpath as String
+     * @throws IllegalArgumentException if the locator of the element is not known
      */
     public static String getXpath(WebElement elem) {
+        By by = ElementLocators.locatorOf(elem);
+        if (by != null) {
+            String description = by.toString();
+            return description.substring(description.indexOf(": ") + 2);
+        }
+
         String value = "";
         String[] locators = elem.toString().split("->");
         for (String s : locators) {
             String newLocator = s.trim().replaceAll("^\\[+", "").replaceAll("]+$", "");
             String[] parts = newLocator.split(": ");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("No locator known for element " + elem);
+            }
             value = parts[1];
             int leftBracketsCount = value.length() - value.replace("[", "").length();
             int rightBracketscount = value.length() - value.replace("]", "").length();
@@ -0,0 +1,91 @@
+package AutomationFramework.interactions;
+
+import org.openqa.selenium.By;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Cache of the By selectors resolved by Elements.by(String), keyed by locator name.
+ *
+ * Resolving a locator builds a PageElement and validates the selector type, so it is done once per name.
+ * Later calls are a single map lookup without any allocation. The cache is shared by all threads.
+ */
+public abstract class LocatorCache {
+    private static final Map<String, By>    cache   = new ConcurrentHashMap<>();
+    private static final LongAdder          hits    = new LongAdder();
+    private static final LongAdder          misses  = new LongAdder();
+
+    /***
+     * Gets the cached By for a locator name and counts the hit or miss
+     *
+     * @param locator           - locator name
+     * @return                  - the cached By or null if the locator was not resolved yet
+     */
+    static By get(String locator) {
+        By by = cache.get(locator);
+        if (by != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return by;
+    }
+
+    /***
+     * Stores a resolved locator
+     *
+     * @param locator           - locator name
+     * @param by                - resolved By
+     */
+    static void put(String locator, By by) {
+        cache.put(locator, by);
+    }
+
+    /***
+     * Removes a locator, so it is resolved again on its next use
+     *
+     * @param locator           - locator name
+     */
+    public static void invalidate(String locator) {
+        cache.remove(locator);
+    }
+
+    /***
+     * Removes every cached locator (e.g. after the locator files were changed)
+     */
+    public static void invalidateAll() {
+        cache.clear();
+    }
+
+    /***
+     * @return                  - number of cached locators
+     */
+    public static int size() {
+        return cache.size();
+    }
+
+    /***
+     * @return                  - number of lookups served from the cache
+     */
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    /***
+     * @return                  - number of lookups which had to resolve the locator
+     */
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    /***
+     * @return                  - ratio of lookups served from the cache, 0 if there was no lookup yet
+     */
+    public static double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+}
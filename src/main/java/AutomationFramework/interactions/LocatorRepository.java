@@ -0,0 +1,219 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.utils.AppConfig;
+import AutomationFramework.utils.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Repository of page element locators, one properties file per page under src/main/resources/locators.
+ *
+ * File "locators/LoginPage.properties" defines the locators of the "LoginPage" page, one per line:
+ *     USERNAME_INPUT = id, userName
+ *     SUBMIT_BUTTON  = css, button[type='submit']
+ * and the element is then used as "LoginPage.USERNAME_INPUT". Names without a page go to "common.properties".
+ *
+ * A page is parsed the first time one of its locators is used (or all of them at startup with locators.preload)
+ * into an immutable hash map, so every lookup is O(1). The files are validated while loading: an unknown locator
+ * type, a malformed line or a duplicated name fails with the file name and line number.
+ * With locators.hotReload the locator directory is watched and a changed page is reloaded on its next use.
+ */
+public abstract class LocatorRepository {
+    private static final String                                     COMMON_PAGE = "common";
+    private static final String                                     EXTENSION   = ".properties";
+    private static final Map<String, Map<String, List<String>>>     pages       = new ConcurrentHashMap<>();
+    private static final File                                       directory   = new File(AppConfig.getString("locators.dir",
+            System.getProperty("user.dir") + "/src/main/resources/locators"));
+    private static Thread                                           watcher;
+
+    static {
+        if (AppConfig.getBoolean("locators.preload", false)) {
+            preload();
+        }
+        if (AppConfig.getBoolean("locators.hotReload", false)) {
+            startWatcher();
+        }
+    }
+
+    /***
+     * Gets the definition of a locator
+     *
+     * @param locator           - locator name in format "page_name.element_name"
+     * @return                  - [locator type, selector] or null if the locator is not defined
+     */
+    public static List<String> get(String locator) {
+        int separator = locator.indexOf('.');
+        String page = separator > 0 ? locator.substring(0, separator) : COMMON_PAGE;
+        String name = separator > 0 ? locator.substring(separator + 1) : locator;
+        return getPage(page).get(name);
+    }
+
+    /***
+     * Gets every locator of a page, loading the page file on first use
+     *
+     * @param page              - page name (file name without extension)
+     * @return                  - immutable map of element name to [locator type, selector], empty if the page has no file
+     */
+    public static Map<String, List<String>> getPage(String page) {
+        return pages.computeIfAbsent(page, LocatorRepository::load);
+    }
+
+    /***
+     * Drops a loaded page (and the resolved selectors cached for it) so it's read again on its next use
+     *
+     * @param page              - page name
+     */
+    public static void reload(String page) {
+        pages.remove(page);
+        LocatorCache.invalidateAll();
+        Logger.info("Locators of page " + page + " will be reloaded");
+    }
+
+    /***
+     * Loads every page file of the locator directory
+     */
+    private static void preload() {
+        String[] files = directory.list((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null) {
+            return;
+        }
+        for (String file : files) {
+            getPage(file.substring(0, file.length() - EXTENSION.length()));
+        }
+        Logger.info(String.format("Preloaded locators of %d pages", pages.size()));
+    }
+
+    /***
+     * Reads and validates a page file, from the locator directory if it exists, otherwise from the classpath
+     *
+     * @param page              - page name
+     * @return                  - immutable map of element name to [locator type, selector]
+     */
+    private static Map<String, List<String>> load(String page) {
+        String fileName = page + EXTENSION;
+        File file = new File(directory, fileName);
+        try (InputStream in = file.isFile() ? Files.newInputStream(file.toPath())
+                : LocatorRepository.class.getClassLoader().getResourceAsStream("locators/" + fileName)) {
+            if (in == null) {
+                Logger.debug("No locator file found for page " + page);
+                return Collections.emptyMap();
+            }
+            return parse(fileName, new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not read locator file " + fileName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /***
+     * Parses the lines of a page file ("NAME = type, selector"). Only the first '=' and the first ',' are
+     * separators, so selectors can contain both.
+     *
+     * @param fileName          - file name used in the validation errors
+     * @param reader            - file content
+     * @return                  - immutable map of element name to [locator type, selector]
+     * @throws IOException      - if the file can't be read
+     */
+    private static Map<String, List<String>> parse(String fileName, BufferedReader reader) throws IOException {
+        Map<String, List<String>> locators = new HashMap<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("!")) {
+                continue;
+            }
+
+            int equals = line.indexOf('=');
+            int comma  = line.indexOf(',', equals + 1);
+            if (equals <= 0 || comma < 0) {
+                throw invalid(fileName, lineNumber, "expected 'NAME = type, selector' but found: " + line);
+            }
+
+            String name     = line.substring(0, equals).trim();
+            String type     = line.substring(equals + 1, comma).trim();
+            String selector = line.substring(comma + 1).trim();
+            if (!Elements.isValidLocator(type)) {
+                throw invalid(fileName, lineNumber, "unknown locator type '" + type + "' for " + name);
+            }
+            if (selector.isEmpty()) {
+                throw invalid(fileName, lineNumber, "empty selector for " + name);
+            }
+            if (locators.put(name, Collections.unmodifiableList(Arrays.asList(type, selector))) != null) {
+                throw invalid(fileName, lineNumber, "duplicate locator " + name);
+            }
+        }
+        return Collections.unmodifiableMap(locators);
+    }
+
+    /***
+     * Builds a validation error pointing to the faulty line
+     *
+     * @param fileName          - locator file name
+     * @param lineNumber        - faulty line
+     * @param message           - what is wrong
+     * @return                  - the exception to throw
+     */
+    private static IllegalStateException invalid(String fileName, int lineNumber, String message) {
+        return new IllegalStateException(String.format("Invalid locator file %s, line %d: %s", fileName, lineNumber, message));
+    }
+
+    /***
+     * Watches the locator directory and reloads a page when its file changes
+     */
+    private static synchronized void startWatcher() {
+        if (watcher != null || !directory.isDirectory()) {
+            return;
+        }
+
+        try {
+            Path path = directory.toPath();
+            WatchService service = FileSystems.getDefault().newWatchService();
+            path.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+
+            watcher = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        WatchKey key = service.take();
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            String file = String.valueOf(event.context());
+                            if (file.endsWith(EXTENSION)) {
+                                reload(file.substring(0, file.length() - EXTENSION.length()));
+                            }
+                        }
+                        key.reset();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "locator-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            Logger.info("Watching locator files in " + path);
+        }
+        catch (IOException e) {
+            Logger.warn("Could not watch locator directory: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.runner.WebDriverManager;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Network readiness: counts the fetch and XMLHttpRequest calls in flight in the page.
+ *
+ * document.readyState is "complete" long before a React app got its data, and jQuery.active only exists on jQuery
+ * pages. The first script run in a document wraps window.fetch and XMLHttpRequest.prototype.send with an in-flight
+ * counter; the network is idle when nothing was in flight and no resource finished loading (Resource Timing,
+ * which also covers the requests started before the counter was installed) for the quiet period.
+ *
+ * The counter is lost with the document, so every script reinstalls it if needed. Calling install() right after a
+ * navigation (see WebDriverManager.openURLPage) keeps the window where requests escape the counter short.
+ */
+public abstract class NetworkIdle {
+    // a single script call must stay under the default 30 s script timeout of the driver, longer waits use more calls
+    private static final long MAX_CALL_MILLIS = 25000;
+
+    private static final String NETWORK_FUNCTIONS =
+            "function afNetInstall() {" +
+            "  var w = window;" +
+            "  if (w.__afNet) { return w.__afNet; }" +
+            "  var net = w.__afNet = { inFlight: 0, last: performance.now(), resources: 0 };" +
+            "  function start() { net.inFlight++; net.last = performance.now(); }" +
+            "  function end() { net.inFlight = Math.max(0, net.inFlight - 1); net.last = performance.now(); }" +
+            "  if (w.fetch) {" +
+            "    var originalFetch = w.fetch;" +
+            "    w.fetch = function () {" +
+            "      start();" +
+            "      try { return originalFetch.apply(this, arguments).then(function (r) { end(); return r; }, function (e) { end(); throw e; }); }" +
+            "      catch (e) { end(); throw e; }" +
+            "    };" +
+            "  }" +
+            "  var originalSend = XMLHttpRequest.prototype.send;" +
+            "  XMLHttpRequest.prototype.send = function () {" +
+            "    var finished = false;" +
+            "    function finish() { if (!finished) { finished = true; end(); } }" +
+            "    start();" +
+            "    this.addEventListener('loadend', finish);" +
+            "    try { return originalSend.apply(this, arguments); } catch (e) { finish(); throw e; }" +
+            "  };" +
+            "  return net;" +
+            "}" +
+            "function afNetIdleFor() {" +
+            "  var net = afNetInstall(), resources = performance.getEntriesByType('resource').length;" +
+            "  if (resources !== net.resources) { net.resources = resources; net.last = performance.now(); }" +
+            "  if (net.inFlight > 0 || document.readyState !== 'complete') { return -1; }" +
+            "  return performance.now() - net.last;" +
+            "}";
+
+    private static final String STATE_SCRIPT = NETWORK_FUNCTIONS +
+            "var idleFor = afNetIdleFor();" +
+            "return { inFlight: window.__afNet.inFlight, idleFor: Math.floor(idleFor) };";
+
+    private static final String AWAIT_SCRIPT = NETWORK_FUNCTIONS +
+            "var quiet = arguments[0], timeout = arguments[1], done = arguments[arguments.length - 1];" +
+            "var started = performance.now(), tick;" +
+            "function check() {" +
+            "  var idle = afNetIdleFor() >= quiet;" +
+            "  if (idle || performance.now() - started >= timeout) {" +
+            "    clearInterval(tick);" +
+            "    done({ idle: idle, inFlight: window.__afNet.inFlight });" +
+            "    return true;" +
+            "  }" +
+            "  return false;" +
+            "}" +
+            "if (!check()) { tick = setInterval(check, 50); }";
+
+    private static final LongAdder         idleWaits     = new LongAdder();
+    private static final LongAdder         idleMillis    = new LongAdder();
+    private static final LongAdder         timeouts      = new LongAdder();
+    private static final LongAccumulator   maxInFlight   = new LongAccumulator(Math::max, 0);
+
+    /***
+     * Installs the request counter in the current document, if not installed yet
+     */
+    public static void install() {
+        readState(WebDriverManager.getWebDriver());
+    }
+
+    /***
+     * Blocks until no request was in flight for the quiet period or the timeout expires
+     *
+     * @param quietMillis       - time without any network activity
+     * @param timeoutMillis     - max time to wait
+     * @return                  - true if the network became idle, false on timeout
+     * @throws org.openqa.selenium.WebDriverException if the script could not run
+     */
+    public static boolean await(long quietMillis, long timeoutMillis) {
+        long start = System.nanoTime();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            WebDriverManager.checkSessionAlive();
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            Object result = ((JavascriptExecutor) WebDriverManager.getWebDriver()).executeAsyncScript(AWAIT_SCRIPT,
+                    quietMillis, Math.min(remaining, MAX_CALL_MILLIS));
+            boolean idle = false;
+            if (result instanceof Map) {
+                Map<?, ?> state = (Map<?, ?>) result;
+                idle = Boolean.TRUE.equals(state.get("idle"));
+                maxInFlight.accumulate(toLong(state.get("inFlight")));
+            }
+            if (idle || remaining <= MAX_CALL_MILLIS) {
+                idleWaits.increment();
+                idleMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (!idle) {
+                    timeouts.increment();
+                }
+                return idle;
+            }
+        }
+    }
+
+    /***
+     * Condition met when no request was in flight for the quiet period, checked with one script per poll
+     * (e.g. as readiness condition of WebDriverManager.openURLPage)
+     *
+     * @param quietMillis       - time without any network activity
+     * @return                  - the condition
+     */
+    public static ExpectedCondition<Boolean> idleFor(long quietMillis) {
+        return new ExpectedCondition<Boolean>() {
+            @Override
+            public Boolean apply(WebDriver driver) {
+                return toLong(readState(driver).get("idleFor")) >= quietMillis;
+            }
+
+            @Override
+            public String toString() {
+                return "network idle for " + quietMillis + " ms";
+            }
+        };
+    }
+
+    /***
+     * @return                  - number of fetch / XMLHttpRequest calls in flight in the current page
+     */
+    public static long inFlightRequests() {
+        return toLong(readState(WebDriverManager.getWebDriver()).get("inFlight"));
+    }
+
+    /***
+     * Reads the request counter of the page, installing it if needed
+     *
+     * @param driver            - web driver
+     * @return                  - inFlight and idleFor (ms, -1 while busy) of the page
+     */
+    private static Map<?, ?> readState(WebDriver driver) {
+        Map<?, ?> state = (Map<?, ?>) ((JavascriptExecutor) driver).executeScript(STATE_SCRIPT);
+        maxInFlight.accumulate(toLong(state.get("inFlight")));
+        return state;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    /***
+     * @return                  - highest number of requests seen in flight at once
+     */
+    public static long getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /***
+     * @return                  - number of network idle waits, average latency and number of timeouts
+     */
+    public static String latencySummary() {
+        long waits = idleWaits.sum();
+        return String.format("Network idle waits: %d (avg %d ms), %d timed out, max %d requests in flight",
+                waits, waits == 0 ? 0 : idleMillis.sum() / waits, timeouts.sum(), maxInFlight.get());
+    }
+}
@@ -1,7 +1,7 @@
 package AutomationFramework.interactions;
 
 import java.util.ArrayList;
-import java.util.Map;
+import java.util.List;
 
 /***
  * PageElement class responsible for elements organization, this class contains element's selectors and a list of all locators available
@@ -14,48 +14,19 @@ public class PageElement {
     public ArrayList<String> elementLocators = new ArrayList<String>();
 
     /**
-     * Setup and read page element data
+     * Setup and read page element data from the locator repository
      *
-     * @param locator       - element locator from repo
-     * @throws Exception    - throws exeption
+     * @param locator       - element locator from repo, in format "page_name.element_name"
+     * @throws Exception    - throws exeption if the locator file of the page is not valid
      */
     public PageElement(String locator) throws Exception {
-        Object object = new Object();
-
-        /***
-         * SuppressWarnings -> What is the SuppressWarnings annotation? A standard annotation that suppresses warnings for the annotated part of the program.
-         *                     (http://www.angelikalanger.com/GenericsFAQ/FAQSections/TechnicalDetails.html#What%20is%20the%20SuppressWarnings%20annotation?)
-         * Source:
-         *    http://www.angelikalanger.com/GenericsFAQ/FAQSections/ProgrammingIdioms.html#FAQ300
-         *
-         */
-        @SuppressWarnings(value = "unchecked")
-        Map<String, ArrayList<String>> locators = (Map<String, ArrayList<String>>) object.getClass().getMethod("getAll").invoke(object);
-        parseValue(locators, locator);
-    }
-
-    /**
-     * Parses the locators and values for a page element
-     *
-     * @param locators      - values in format 'id, selector'
-     * @param elementName   - element to match
-     * @return              - returns the locators
-     */
-    private ArrayList<String> parseValue(Map<String, ArrayList<String>> locators, String elementName){
-        if (locators == null) {
-            return elementLocators;
-        }
-
-        for(String s : locators.keySet()){
-            if(s.equals(elementName)){
-                this.elementBy = locators.get(s).get(0);
-                this.elementSelector = locators.get(s).get(1);
-                this.elementName = s;
-                setLocators();
-            }
+        List<String> definition = LocatorRepository.get(locator);
+        if (definition != null) {
+            this.elementBy = definition.get(0);
+            this.elementSelector = definition.get(1);
+            this.elementName = locator;
+            setLocators();
         }
-
-        return elementLocators;
     }
 
     /***
@@ -0,0 +1,167 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.runner.CommandStats;
+import AutomationFramework.runner.WebDriverManager;
+import AutomationFramework.utils.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Element lookup done inside the page with a single injected script.
+ *
+ * The classic lookup of Elements.findElement costs 3 + N round trips: readyState check, presence wait,
+ * findElements and isDisplayed() on each of the N matches. Here one executeAsyncScript waits in the page for the
+ * document to be complete (only with the normal page load strategy) and for the selector to match, filters the
+ * visible matches and returns the first one, or straight away the first match if none is visible, like the classic
+ * lookup.
+ *
+ * Only selectors that can be evaluated in the page are supported (id, name, className, cssSelector, xpath, tagName);
+ * the caller falls back to the classic lookup for the others or if the script fails.
+ */
+public abstract class ScriptLookup {
+    // largest in-page wait, kept under the default 30 s script timeout of the driver
+    private static final long MAX_TIMEOUT_MILLIS = 25000;
+
+    static final String FIND_FUNCTIONS =
+            "function afFind(s, v, root) {" +
+            "  root = root || document;" +
+            "  switch (s) {" +
+            "    case 'id': return Array.prototype.slice.call(root.querySelectorAll('#' + CSS.escape(v)));" +
+            "    case 'name': return Array.prototype.slice.call(root.querySelectorAll('[name=\"' + CSS.escape(v) + '\"]'));" +
+            "    case 'className': return Array.prototype.slice.call(root.getElementsByClassName(v));" +
+            "    case 'cssSelector': return Array.prototype.slice.call(root.querySelectorAll(v));" +
+            "    case 'tagName': return Array.prototype.slice.call(root.getElementsByTagName(v));" +
+            "    case 'xpath':" +
+            "      var r = document.evaluate(v, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null), out = [];" +
+            "      for (var i = 0; i < r.snapshotLength; i++) { out.push(r.snapshotItem(i)); }" +
+            "      return out;" +
+            "  }" +
+            "  return [];" +
+            "}" +
+            "function afVisible(e) {" +
+            "  if (!(e.offsetWidth || e.offsetHeight || e.getClientRects().length)) { return false; }" +
+            "  var st = window.getComputedStyle(e);" +
+            "  return st.visibility !== 'hidden' && st.visibility !== 'collapse' && st.opacity !== '0';" +
+            "}";
+
+    private static final String FIND_FIRST_VISIBLE_SCRIPT = FIND_FUNCTIONS +
+            "var strategy = arguments[0], value = arguments[1], timeout = arguments[2], waitComplete = arguments[3];" +
+            "var done = arguments[arguments.length - 1], end = Date.now() + timeout;" +
+            "(function poll() {" +
+            "  var all = !waitComplete || document.readyState === 'complete' ? afFind(strategy, value) : [];" +
+            "  if (all.length > 0) {" +
+            "    for (var i = 0; i < all.length; i++) { if (afVisible(all[i])) { return done([all[i], all.length]); } }" +
+            "    return done([all[0], all.length]);" +
+            "  }" +
+            "  if (Date.now() >= end) { return done(null); }" +
+            "  setTimeout(poll, 50);" +
+            "})();";
+
+    private static final LongAdder lookups          = new LongAdder();
+    private static final LongAdder fallbacks        = new LongAdder();
+    private static final LongAdder roundTripsSaved  = new LongAdder();
+
+    /***
+     * Splits a By in the strategy and value understood by the in-page lookup
+     *
+     * @param by                - selenium By
+     * @return                  - [strategy, value] or null if the By can't be evaluated in the page
+     */
+    static String[] toScriptLocator(By by) {
+        String description = by.toString();
+        int separator = description.indexOf(": ");
+        if (!description.startsWith("By.") || separator < 0) {
+            return null;
+        }
+
+        String strategy = description.substring(3, separator);
+        switch (strategy) {
+            case "id":
+            case "name":
+            case "className":
+            case "cssSelector":
+            case "xpath":
+            case "tagName":
+                return new String[] { strategy, description.substring(separator + 2) };
+            default:
+                return null;
+        }
+    }
+
+    /***
+     * @param by                - selenium By
+     * @return                  - true if the By can be looked up with a single script
+     */
+    public static boolean supports(By by) {
+        return toScriptLocator(by) != null;
+    }
+
+    /***
+     * Finds the first visible element matching the selector in one round trip
+     *
+     * @param by                - selenium By, must be supported (see supports)
+     * @param timeoutMillis     - how long the page waits for a match
+     * @return                  - first visible match, first match if none is visible, null if nothing matched in time
+     * @throws org.openqa.selenium.WebDriverException if the script could not run, the caller should fall back
+     */
+    public static WebElement findFirstVisible(By by, long timeoutMillis) {
+        String[] locator = toScriptLocator(by);
+        if (locator == null) {
+            throw new IllegalArgumentException("Selector can't be evaluated in the page: " + by);
+        }
+
+        Object result = ((JavascriptExecutor) WebDriverManager.getWebDriver()).executeAsyncScript(FIND_FIRST_VISIBLE_SCRIPT,
+                locator[0], locator[1], Math.min(timeoutMillis, MAX_TIMEOUT_MILLIS),
+                WebDriverManager.getPageLoadStrategy() == PageLoadStrategy.NORMAL);
+        lookups.increment();
+        CommandStats.attributeLastCommand(by);
+        if (!(result instanceof List) || ((List<?>) result).size() < 2) {
+            return null;
+        }
+
+        List<?> found = (List<?>) result;
+        long matches = ((Number) found.get(1)).longValue();
+        // readyState + presence wait + findElements + isDisplayed per match, against this single call
+        roundTripsSaved.add(3 + matches - 1);
+        // script results have no "found by", keep the locator for describing and refreshing the element
+        WebElement element = (WebElement) found.get(0);
+        ElementLocators.remember(element, by);
+        return element;
+    }
+
+    /***
+     * Counts a lookup that had to use the classic path
+     *
+     * @param reason            - why the script lookup was not used
+     */
+    static void recordFallback(String reason) {
+        fallbacks.increment();
+        Logger.debug(() -> "Script lookup fell back to the classic lookup: " + reason);
+    }
+
+    /***
+     * @return                  - number of lookups done with a single script
+     */
+    public static long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /***
+     * @return                  - number of lookups that fell back to the classic path
+     */
+    public static long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /***
+     * @return                  - estimated number of WebDriver round trips saved compared to the classic lookup
+     */
+    public static long getRoundTripsSaved() {
+        return roundTripsSaved.sum();
+    }
+}
@@ -1,24 +1,195 @@
 package AutomationFramework.interactions;
 
+import AutomationFramework.exceptions.SessionDeadException;
 import AutomationFramework.runner.WebDriverManager;
+import AutomationFramework.utils.AppConfig;
 import AutomationFramework.utils.Logger;
+import AutomationFramework.utils.Metrics;
+import AutomationFramework.utils.Trace;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.Sleeper;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public abstract class Wait {
-    private static By by;
+    // default timeouts, upper bounds only: the poll interval inside them is learned per wait (see WaitProfile)
+    public static final int         DEFAULT_TIMEOUT_SECONDS = AppConfig.getInt("wait.timeoutSeconds", 10);
+    public static final int         SHORT_TIMEOUT_SECONDS   = AppConfig.getInt("wait.shortTimeoutSeconds", 5);
+    public static final int         READY_TIMEOUT_SECONDS   = AppConfig.getInt("wait.readyTimeoutSeconds", 15);
+
+    // wait.readiness=network makes waitUntilJSReady wait for the page requests to settle too (see NetworkIdle)
+    public static final boolean     NETWORK_READINESS       = AppConfig.getString("wait.readiness", "document").equalsIgnoreCase("network");
+    private static final long       NETWORK_QUIET_MILLIS    = AppConfig.getLong("wait.networkQuietMillis", 500);
+
+    // last locator waited on by the current thread, used to describe waits on plain WebElements
+    private static final ThreadLocal<By> lastBy = new ThreadLocal<>();
+
+    // wait.backend=observer resolves locator conditions with an in-page MutationObserver (DomWait), polling otherwise
+    private static final boolean    OBSERVER        = AppConfig.getString("wait.backend", "observer").equalsIgnoreCase("observer");
+    private static final LongAdder  observerWaits   = new LongAdder();
+    private static final LongAdder  observerMillis  = new LongAdder();
+    private static final LongAdder  pollingWaits    = new LongAdder();
+    private static final LongAdder  pollingMillis   = new LongAdder();
+    private static final Metrics.Histogram  WAIT_LATENCY  = Metrics.histogram("wait.latency");
+    private static final Metrics.Counter    WAIT_TIMEOUTS = Metrics.counter("wait.timeouts");
 
     /**
-     * Utility method to wait for Java Script to fully load on page
+     * Waits until the condition is met, failing fast if the browser session dies in the meantime.
+     * Every wait of the framework goes through here.
+     *
+     * @param timeoutSeconds    - time to wait in seconds
+     * @param condition         - condition to be met
+     * @return                  - the condition result
+     * @throws SessionDeadException if the session was marked dead by the watchdog
+     */
+    public static <T> T until(long timeoutSeconds, ExpectedCondition<T> condition) {
+        return until(String.valueOf(condition), timeoutSeconds, condition);
+    }
+
+    /**
+     * Waits until the condition is met, see until(long, ExpectedCondition).
+     * Inside an operation (see WaitBudget) the timeout is capped to what is left of the operation budget.
+     * The poll interval is picked from the latencies learned for the step (see WaitProfile).
+     *
+     * @param step              - name of the wait in the budget log
+     * @param timeoutSeconds    - time to wait in seconds
+     * @param condition         - condition to be met
+     * @return                  - the condition result
+     * @throws SessionDeadException if the session was marked dead by the watchdog
+     */
+    public static <T> T until(String step, long timeoutSeconds, ExpectedCondition<T> condition) {
+        return untilMillis(step, TimeUnit.SECONDS.toMillis(timeoutSeconds), condition);
+    }
+
+    /**
+     * Waits until the condition is met, see until(String, long, ExpectedCondition)
+     *
+     * @param step              - name of the wait in the budget log
+     * @param timeoutMillis     - time to wait in milliseconds, the condition is checked at least once
+     * @param condition         - condition to be met
+     * @return                  - the condition result
+     */
+    private static <T> T untilMillis(String step, long timeoutMillis, ExpectedCondition<T> condition) {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("until", step)) {
+            T result = new WebDriverWait(WebDriverManager.getWebDriver(), Clock.systemDefaultZone(), adaptiveSleeper(step, start), 0, 0)
+                    .withTimeout(Duration.ofMillis(WaitBudget.clampMillis(timeoutMillis)))
+                    .until(driver -> {
+                        WebDriverManager.checkSessionAlive();
+                        return condition.apply(driver);
+                    });
+            WaitProfile.record(step, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        } catch (TimeoutException e) {
+            WAIT_TIMEOUTS.increment();
+            throw e;
+        } finally {
+            WaitBudget.record(step, start);
+            WAIT_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Sleeper of one wait, ignoring the fixed interval of WebDriverWait for the one learned for the step
+     *
+     * @param step              - wait key in the profile
+     * @param start             - System.nanoTime() at the start of the wait
+     * @return                  - the sleeper
+     */
+    private static Sleeper adaptiveSleeper(String step, long start) {
+        long[] previous = {0};
+        return ignored -> {
+            long interval = WaitProfile.nextInterval(step, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), previous[0]);
+            previous[0] = interval;
+            Thread.sleep(interval);
+        };
+    }
+
+    /**
+     * Waits for a condition on a locator, using the MutationObserver backend when the condition can be evaluated
+     * in the page and falling back to polling otherwise (or if the page script fails).
+     *
+     * @param by                - element locator, may be null for conditions not bound to a locator
+     * @param domCondition      - the same condition expressed for the page, null if it can't be
+     * @param condition         - the polling condition
+     * @param timeoutSeconds    - time to wait in seconds
+     * @throws TimeoutException if the condition is not met in time
+     */
+    private static void await(By by, DomWait.Condition domCondition, ExpectedCondition<?> condition, long timeoutSeconds) {
+        try (Trace.Span span = Trace.span("wait", by)) {
+            long start = System.nanoTime();
+            if (OBSERVER && domCondition != null && DomWait.supports(by)) {
+                try {
+                    boolean met;
+                    try {
+                        met = DomWait.await(by, domCondition, WaitBudget.clampMillis(TimeUnit.SECONDS.toMillis(timeoutSeconds)));
+                    } finally {
+                        WaitBudget.record(domCondition + " " + by, start);
+                    }
+                    record(observerWaits, observerMillis, start);
+                    WAIT_LATENCY.recordSince(start);
+                    if (!met) {
+                        WAIT_TIMEOUTS.increment();
+                        throw new TimeoutException(String.format("Expected condition failed: waiting for %s of %s (tried for %d second(s))",
+                                domCondition, by, timeoutSeconds));
+                    }
+                    WaitProfile.record(domCondition + " " + by, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    return;
+                }
+                catch (TimeoutException e) {
+                    throw e;
+                }
+                catch (WebDriverException e) {
+                    Logger.debug(() -> "MutationObserver wait not possible, falling back to polling: " + e.getMessage());
+                }
+            }
+
+            long pollStart = System.nanoTime();
+            waitUntilJSReady();
+            // the polling only gets what the observer left of the timeout
+            long leftMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds) - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            untilMillis(String.valueOf(condition), Math.max(0, leftMillis), condition);
+            record(pollingWaits, pollingMillis, pollStart);
+        }
+    }
+
+    /**
+     * Adds a finished wait to the latency stats of its backend
+     *
+     * @param waits             - wait counter of the backend
+     * @param millis            - latency sum of the backend
+     * @param start             - System.nanoTime() at the start of the wait
+     */
+    private static void record(LongAdder waits, LongAdder millis, long start) {
+        waits.increment();
+        millis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * @return                  - number of waits and average latency of the MutationObserver and polling backends
+     */
+    public static String latencySummary() {
+        long observer = observerWaits.sum();
+        long polling  = pollingWaits.sum();
+        return String.format("Waits: observer %d (avg %d ms), polling %d (avg %d ms)",
+                observer, observer == 0 ? 0 : observerMillis.sum() / observer,
+                polling, polling == 0 ? 0 : pollingMillis.sum() / polling);
+    }
+
+    /**
+     * Utility method to wait for Java Script to fully load on page.
+     * With wait.readiness=network it also waits until no fetch / XMLHttpRequest was in flight for
+     * wait.networkQuietMillis (see NetworkIdle).
      */
     static void waitUntilJSReady() {
         WebDriver drv = WebDriverManager.getWebDriver();
-        WebDriverWait wait = new WebDriverWait(drv, 15);
         JavascriptExecutor jsExec = (JavascriptExecutor) drv;
 
         // Wait for Javascript to load
@@ -28,22 +199,58 @@ public abstract class Wait {
                     .executeScript("return document.readyState").toString().equals("complete");  // Verify if the DOM has the Complete state (readyState)
         };
 
-        // Wait for jQuery to load
-        ExpectedCondition<Boolean> jQueryLoad = driver -> {
-            assert driver != null;
-            return ((Long) ((JavascriptExecutor) driver)
-                    .executeScript("return jQuery.active") == 0);
-        };
+        if (NETWORK_READINESS) {
+            // the network check covers the ready state too
+            try {
+                waitForNetworkIdle(NETWORK_QUIET_MILLIS, READY_TIMEOUT_SECONDS, false);
+                return;
+            }
+            catch (SessionDeadException e) {
+                throw e;
+            }
+            catch (WebDriverException e) {
+                Logger.debug(() -> "Network idle wait not possible, waiting for the ready state only: " + e.getMessage());
+            }
+        }
 
         // Get JS is Ready
         boolean jsReady = jsExec.executeScript("return document.readyState").toString().equals("complete");
 
         // Wait Javascript until it is Ready!
         if (!jsReady) {
-            System.out.println("JS in NOT Ready!");
+            Logger.warn("JS in NOT Ready!");
             // Wait for Javascript to load
-            wait.until(jsLoad);
+            until("document ready", READY_TIMEOUT_SECONDS, jsLoad);
+        }
+    }
+
+    /**
+     * Waits until the page is quiet: document complete and no fetch / XMLHttpRequest in flight for the quiet period
+     *
+     * @param quietMillis       - time without any network activity
+     * @param timeoutSeconds    - time to wait in seconds
+     * @param throwException    - if true, throws TimeoutException if the network is still busy at the timeout
+     * @return                  - true if the network became idle, false otherwise
+     */
+    public static boolean waitForNetworkIdle(long quietMillis, int timeoutSeconds, boolean throwException) {
+        long start = System.nanoTime();
+        boolean idle;
+        try (Trace.Span span = Trace.span("network idle")) {
+            idle = NetworkIdle.await(quietMillis, WaitBudget.clampMillis(TimeUnit.SECONDS.toMillis(timeoutSeconds)));
+        } finally {
+            WaitBudget.record("network idle", start);
+        }
+
+        if (!idle) {
+            String message = String.format("Network still busy after %d second(s)", timeoutSeconds);
+            if (throwException) {
+                throw new TimeoutException(message);
+            }
+            Logger.debug(message);
+            return false;
         }
+        WaitProfile.record("network idle", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return true;
     }
 
     /***
@@ -56,12 +263,28 @@ public abstract class Wait {
      * @return                  - True if page is loaded otherwise false.
      */
     static boolean waitNoMsg(ExpectedCondition condition, boolean throwException, int timeout) {
+        return waitNoMsg(null, null, condition, throwException, timeout);
+    }
+
+    /***
+     * Waits for a condition on a locator without logging, see waitNoMsg(ExpectedCondition, boolean, int)
+     *
+     * @param by                - element locator
+     * @param domCondition      - the same condition expressed for the page, null to always poll
+     * @param condition         - Condition to be met in order to validate if the element is visible or not
+     * @param throwException    - Throws an exception if the page is not loading.
+     * @param timeout           - Time to wait in seconds
+     * @return                  - True if page is loaded otherwise false.
+     */
+    static boolean waitNoMsg(By by, DomWait.Condition domCondition, ExpectedCondition condition, boolean throwException, int timeout) {
         //Initialize timeout for waiting for the page to load.
-        Duration waitForLoadTimeout = timeout <= 0 ? Duration.ofSeconds(10) : Duration.ofSeconds(timeout);
+        Duration waitForLoadTimeout = Duration.ofSeconds(timeout <= 0 ? DEFAULT_TIMEOUT_SECONDS : timeout);
 
         try {
-            new WebDriverWait(WebDriverManager.getWebDriver(), waitForLoadTimeout.getSeconds()).until(condition);
-            waitUntilJSReady();
+            await(by, domCondition, condition, waitForLoadTimeout.getSeconds());
+        }
+        catch (SessionDeadException e) {
+            throw e;
         }
         catch (Exception e) {
             if (throwException) {
@@ -83,8 +306,9 @@ public abstract class Wait {
      * @throws ElementNotVisibleException - throw
      */
     public static boolean waitForVisible(String locator, int timeout, boolean throwException) throws Exception {
-        Wait.by = Elements.by(locator);
-        return wait(by, ExpectedConditions.visibilityOfElementLocated(by), throwException, timeout);
+        By by = Elements.by(locator);
+        lastBy.set(by);
+        return wait(by, DomWait.Condition.VISIBLE, ExpectedConditions.visibilityOfElementLocated(by), throwException, timeout);
     }
 
     /**
@@ -93,7 +317,7 @@ public abstract class Wait {
      * @param by - selenium By
      */
     public static void waitForVisible(By by) {
-        wait(Wait.by = by, ExpectedConditions.visibilityOfElementLocated(by));
+        wait(remember(by), DomWait.Condition.VISIBLE, ExpectedConditions.visibilityOfElementLocated(by), true, 0);
     }
 
     /**
@@ -116,7 +340,7 @@ public abstract class Wait {
      * @return - returns true if element becomes visible, false otherwise
      */
     public static boolean waitForVisible(By by, int timeout) {
-        return wait(Wait.by = by, ExpectedConditions.visibilityOfElementLocated(by), timeout);
+        return wait(remember(by), DomWait.Condition.VISIBLE, ExpectedConditions.visibilityOfElementLocated(by), false, timeout);
     }
 
 
@@ -146,7 +370,7 @@ public abstract class Wait {
      * @throws ElementNotVisibleException - throws exception
      */
     public static boolean waitForVisible(By by, int timeout, boolean throwException) {
-        return wait(Wait.by = by, ExpectedConditions.visibilityOfElementLocated(by), throwException, timeout);
+        return wait(remember(by), DomWait.Condition.VISIBLE, ExpectedConditions.visibilityOfElementLocated(by), throwException, timeout);
     }
 
     /**
@@ -158,7 +382,7 @@ public abstract class Wait {
      * @throws ElementNotVisibleException - throws exception
      */
     public static boolean waitForVisible(By by, boolean throwException) {
-        return wait(Wait.by = by, ExpectedConditions.visibilityOfElementLocated(by), throwException, 0);
+        return wait(remember(by), DomWait.Condition.VISIBLE, ExpectedConditions.visibilityOfElementLocated(by), throwException, 0);
     }
 
     /**
@@ -170,7 +394,18 @@ public abstract class Wait {
      * @throws ElementNotVisibleException - throws exception
      */
     public static boolean waitForVisible(WebElement webElement, boolean throwException) {
-        return wait(Wait.by, ExpectedConditions.visibilityOf(webElement), throwException, 0);
+        return wait(lastBy.get(), ExpectedConditions.visibilityOf(webElement), throwException, 0);
+    }
+
+    /**
+     * Stores the locator as the last one waited on by the current thread
+     *
+     * @param by             - selenium By
+     * @return               - the same By
+     */
+    private static By remember(By by) {
+        lastBy.set(by);
+        return by;
     }
 
     /**
@@ -186,32 +421,48 @@ public abstract class Wait {
      * @return - True if page loaded successfully, false otherwise.
      */
     private static boolean wait(By by, ExpectedCondition condition, boolean throwException, int timeout) {
+        return wait(by, null, condition, throwException, timeout);
+    }
+
+    /**
+     * Waits for the page to load, see wait(By, ExpectedCondition, boolean, int).
+     *
+     * @param by             - The By to validate exists to signify the page loaded.
+     * @param domCondition   - the same condition expressed for the page (MutationObserver backend), null to always poll
+     * @param condition      - condition to be met in order to validate existence of the element on page
+     * @param throwException - If true, throws an excpetion if the page does not load. False, does not.
+     * @param timeout        - Seconds to wait for the page to load. If timeOut &lt;= 0 then the default timeout is used.
+     * @return - True if page loaded successfully, false otherwise.
+     */
+    private static boolean wait(By by, DomWait.Condition domCondition, ExpectedCondition condition, boolean throwException, int timeout) {
         //Initialize timeout for waiting for the page to load.
-        Duration waitForLoadTimeout = timeout <= 0 ? Duration.ofSeconds(5) : Duration.ofSeconds(timeout);
+        Duration waitForLoadTimeout = Duration.ofSeconds(timeout <= 0 ? SHORT_TIMEOUT_SECONDS : timeout);
 
-        Logger.debug(String.format("Waiting for page to load; waiting for the following to exist: %s.\n" +
-                "Waiting for load timeout: %s milliseconds", by.toString(), waitForLoadTimeout.toMillis()));
+        Logger.debug(() -> String.format("Waiting for page to load; waiting for the following to exist: %s.\n" +
+                "Waiting for load timeout: %s milliseconds", String.valueOf(by), waitForLoadTimeout.toMillis()));
 
         Date dateTimeBeforeWaitForLoad;
         try {
             dateTimeBeforeWaitForLoad = new Date();
 
-            waitUntilJSReady();
-            new WebDriverWait(WebDriverManager.getWebDriver(), waitForLoadTimeout.getSeconds()).until(condition);
+            await(by, domCondition, condition, waitForLoadTimeout.getSeconds());
+        }
+        catch (SessionDeadException e) {
+            throw e;
         }
         catch (Exception e) {
             if (throwException) {
                 Logger.error(String.format("Failed to wait for page to load since failed to validate existence of %s within %d milliseconds!",
-                        by.toString(), waitForLoadTimeout.toMillis()));
+                        String.valueOf(by), waitForLoadTimeout.toMillis()));
                 throw e;
             }
 
-            Logger.info(String.format("Element %s not found within %d milliseconds!", by.toString(), waitForLoadTimeout.toMillis()));
+            Logger.info(String.format("Element %s not found within %d milliseconds!", String.valueOf(by), waitForLoadTimeout.toMillis()));
             return false;
         }
 
         long elapsed = new Date().getTime() - dateTimeBeforeWaitForLoad.getTime();
-        Logger.debug(String.format("Page loaded; the following exists: %s. \nFound in %d milliseconds", by.toString(), elapsed));
+        Logger.debug(() -> String.format("Page loaded; the following exists: %s. \nFound in %d milliseconds", String.valueOf(by), elapsed));
         return true;
     }
 
@@ -228,19 +479,22 @@ public abstract class Wait {
      * @throws Exception - throws exception
      */
     public static boolean waitForNotVisible(String locator, int timeout, boolean throwException) throws Exception {
-        Wait.by = Elements.by(locator);
+        By by = Elements.by(locator);
+        lastBy.set(by);
 
         //Initialize timeout for waiting for the page to load.
-        Duration waitForLoadTimeout = timeout <= 0 ? Duration.ofSeconds(5) : Duration.ofSeconds(timeout);
+        Duration waitForLoadTimeout = Duration.ofSeconds(timeout <= 0 ? SHORT_TIMEOUT_SECONDS : timeout);
 
-        Logger.debug(String.format("Waiting for page to load; waiting for the following to not be visible: %s.\n" +
+        Logger.debug(() -> String.format("Waiting for page to load; waiting for the following to not be visible: %s.\n" +
                 "Waiting for load timeout: %s milliseconds", by.toString(), waitForLoadTimeout.toMillis()));
 
         Date dateTimeBeforeWaitForLoad;
         try {
             dateTimeBeforeWaitForLoad = new Date();
-            waitUntilJSReady();
-            new WebDriverWait(WebDriverManager.getWebDriver(), waitForLoadTimeout.getSeconds()).until(ExpectedConditions.invisibilityOfElementLocated(by));
+            await(by, DomWait.Condition.NOT_VISIBLE, ExpectedConditions.invisibilityOfElementLocated(by), waitForLoadTimeout.getSeconds());
+        }
+        catch (SessionDeadException e) {
+            throw e;
         }
         catch (Exception e) {
             Logger.error(String.format("Failed to wait for page to load since failed to validate invisibility of %s " +
@@ -253,7 +507,7 @@ public abstract class Wait {
         }
 
         long elapsed = new Date().getTime() - dateTimeBeforeWaitForLoad.getTime();
-        Logger.debug(String.format("Page loaded; the following not visible: %s. \nFound in %d milliseconds", by.toString(), elapsed));
+        Logger.debug(() -> String.format("Page loaded; the following not visible: %s. \nFound in %d milliseconds", by, elapsed));
         return true;
     }
 }
@@ -0,0 +1,119 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.utils.AppConfig;
+import AutomationFramework.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Deadline shared by every wait of one framework operation.
+ *
+ * The framework timeouts used to stack: Clicks.click(String) waited for JS readiness (15 s) and presence (10 s)
+ * in Elements.findElement, then up to 10 s for clickability, so a failing step could take 35 s or more.
+ * An operation now opens a budget and every nested wait (Wait.until, DomWait, ScriptLookup) is capped to what
+ * is left of it, so the whole chain gives up at the same point. A budget opened while another one is active
+ * on the same thread joins it instead of extending the deadline.
+ *
+ * When the outermost budget is closed, the time spent by each wait is logged (debug) for tuning.
+ *
+ *     try (WaitBudget budget = WaitBudget.open("click")) {
+ *         ...
+ *     }
+ */
+public class WaitBudget implements AutoCloseable {
+    private static final long                       DEFAULT_MILLIS = AppConfig.getLong("wait.operationBudgetMillis", 15000);
+    private static final ThreadLocal<WaitBudget>    current        = new ThreadLocal<>();
+
+    private final String        operation;
+    private final WaitBudget    parent;
+    private final WaitBudget    root;
+    private final long          budgetMillis;
+    private final long          start;
+    private final long          deadline;
+    private final List<String>  steps;
+
+    private WaitBudget(String operation, long budgetMillis, WaitBudget parent) {
+        this.operation    = operation;
+        this.parent       = parent;
+        this.root         = parent == null ? this : parent.root;
+        this.start        = System.nanoTime();
+        this.budgetMillis = budgetMillis;
+        this.deadline     = parent == null ? start + TimeUnit.MILLISECONDS.toNanos(budgetMillis)
+                : Math.min(parent.deadline, start + TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+        this.steps        = parent == null ? new ArrayList<>() : null;
+    }
+
+    /***
+     * Opens a budget with the default duration (wait.operationBudgetMillis)
+     *
+     * @param operation         - operation name used in the log
+     * @return                  - the budget, to be closed when the operation ends
+     */
+    public static WaitBudget open(String operation) {
+        return open(operation, DEFAULT_MILLIS);
+    }
+
+    /***
+     * Opens a budget for an operation, or joins the budget already active on this thread
+     *
+     * @param operation         - operation name used in the log
+     * @param budgetMillis      - max duration of the operation
+     * @return                  - the budget, to be closed when the operation ends
+     */
+    public static WaitBudget open(String operation, long budgetMillis) {
+        WaitBudget budget = new WaitBudget(operation, budgetMillis, current.get());
+        current.set(budget);
+        return budget;
+    }
+
+    /***
+     * Caps a wait to the time left in the active budget
+     *
+     * @param requestedMillis   - timeout the wait would use on its own
+     * @return                  - the timeout to use, 0 if the budget is spent
+     */
+    public static long clampMillis(long requestedMillis) {
+        WaitBudget budget = current.get();
+        if (budget == null) {
+            return requestedMillis;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(budget.deadline - System.nanoTime());
+        return Math.max(0, Math.min(requestedMillis, remaining));
+    }
+
+    /***
+     * @return                  - true if a budget is active and its deadline has passed
+     */
+    public static boolean isExhausted() {
+        WaitBudget budget = current.get();
+        return budget != null && System.nanoTime() >= budget.deadline;
+    }
+
+    /***
+     * Records the time spent by one wait in the active budget
+     *
+     * @param step              - description of the wait
+     * @param startNanos        - System.nanoTime() at the start of the wait
+     */
+    static void record(String step, long startNanos) {
+        WaitBudget budget = current.get();
+        if (budget != null) {
+            budget.root.steps.add(String.format("%s %d ms", step, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (parent != null) {
+            current.set(parent);
+            return;
+        }
+
+        current.remove();
+        long usedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Logger.debug(() -> String.format("Operation '%s' used %d of %d ms: %s", operation, usedMillis, budgetMillis,
+                steps.isEmpty() ? "no waits" : String.join(", ", steps)));
+    }
+}
@@ -0,0 +1,189 @@
+package AutomationFramework.interactions;
+
+import AutomationFramework.utils.AppConfig;
+import AutomationFramework.utils.Logger;
+import org.openqa.selenium.WebElement;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Wait latencies learned per locator and condition, used by Wait to pick its poll interval.
+ *
+ * WebDriverWait polls every 500 ms whatever the element: an element showing up in 50 ms costs a useless
+ * half-second and one that takes 8 s costs 16 remote calls. For each wait key (condition + locator) a running
+ * mean and deviation of the observed latency is kept (same smoothing as the TCP round trip estimator).
+ * Inside the expected window (mean + 4 deviations) the wait polls at a fifth of the mean, after that it backs
+ * off exponentially up to MAX_INTERVAL_MILLIS.
+ *
+ * The profile is read from wait.profile.file when the class loads and written back at JVM exit,
+ * so a warm run starts with the latencies of the previous one.
+ */
+public abstract class WaitProfile {
+    private static final long   MIN_INTERVAL_MILLIS     = 20;
+    private static final long   MAX_INTERVAL_MILLIS     = 1000;
+    private static final long   UNKNOWN_INTERVAL_MILLIS = 100;
+    // samples needed before the learned window is trusted
+    private static final int    MIN_SAMPLES             = 3;
+
+    private static final boolean                ENABLED = AppConfig.getBoolean("wait.profile.enabled", true);
+    private static final Path                   FILE    = Paths.get(AppConfig.getString("wait.profile.file", "target/wait-profile.properties"));
+    private static final Map<String, Stats>     stats   = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            load();
+            Runtime.getRuntime().addShutdownHook(new Thread(WaitProfile::save));
+        }
+    }
+
+    /***
+     * Latency estimate of one wait key
+     */
+    private static class Stats {
+        long    count;
+        double  mean;
+        double  deviation;
+
+        synchronized void add(long millis) {
+            if (count == 0) {
+                mean = millis;
+                deviation = millis / 2.0;
+            } else {
+                deviation = 0.75 * deviation + 0.25 * Math.abs(millis - mean);
+                mean = 0.875 * mean + 0.125 * millis;
+            }
+            count++;
+        }
+
+        synchronized long window() {
+            return count < MIN_SAMPLES ? -1 : (long) (mean + 4 * deviation);
+        }
+
+        synchronized long pollInterval() {
+            return Math.max(MIN_INTERVAL_MILLIS, Math.min(MAX_INTERVAL_MILLIS / 4, (long) (mean / 5)));
+        }
+
+        synchronized String format() {
+            return String.format("%d,%.1f,%.1f", count, mean, deviation);
+        }
+    }
+
+    /***
+     * Records how long a wait took to see its condition met (waits that time out are not recorded,
+     * a negative check would teach the profile its timeout)
+     *
+     * @param key               - condition and locator of the wait
+     * @param millis            - wait duration
+     */
+    static void record(String key, long millis) {
+        if (ENABLED) {
+            stats.computeIfAbsent(key, k -> new Stats()).add(millis);
+        }
+    }
+
+    /***
+     * Picks the sleep before the next poll of a wait
+     *
+     * @param key               - condition and locator of the wait
+     * @param elapsedMillis     - time waited so far
+     * @param previousMillis    - previous sleep of this wait, 0 before the first one
+     * @return                  - time to sleep before polling again
+     */
+    static long nextInterval(String key, long elapsedMillis, long previousMillis) {
+        Stats current = ENABLED ? stats.get(key) : null;
+        long window = current == null ? -1 : current.window();
+        if (window < 0) {
+            // nothing learned yet: start tight, then back off
+            return previousMillis == 0 ? UNKNOWN_INTERVAL_MILLIS : Math.min(MAX_INTERVAL_MILLIS, previousMillis * 2);
+        }
+
+        if (elapsedMillis < window) {
+            return current.pollInterval();
+        }
+        // past the expected window the element is unusually late, stop hammering the driver
+        return Math.min(MAX_INTERVAL_MILLIS, Math.max(previousMillis, current.pollInterval()) * 2);
+    }
+
+    /***
+     * Describes an element for a wait key: the locator it was found with, without the session id
+     *
+     * @param element           - web element
+     * @return                  - locator description, e.g. "By.id: userName" (see ElementLocators.describe)
+     */
+    static String describe(WebElement element) {
+        return ElementLocators.describe(element);
+    }
+
+    /***
+     * @return                  - number of wait keys with learned latencies
+     */
+    public static int size() {
+        return stats.size();
+    }
+
+    /***
+     * Reads the profile saved by a previous run
+     */
+    private static void load() {
+        if (!Files.exists(FILE)) {
+            return;
+        }
+
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(FILE)) {
+            props.load(in);
+        }
+        catch (Exception e) {
+            Logger.warn("Could not read wait profile " + FILE + ": " + e.getMessage());
+            return;
+        }
+
+        for (String key : props.stringPropertyNames()) {
+            String[] values = props.getProperty(key).split(",");
+            if (values.length != 3) {
+                continue;
+            }
+            try {
+                Stats loaded = new Stats();
+                loaded.count = Long.parseLong(values[0]);
+                loaded.mean = Double.parseDouble(values[1]);
+                loaded.deviation = Double.parseDouble(values[2]);
+                stats.put(key, loaded);
+            }
+            catch (NumberFormatException e) {
+                Logger.debug("Skipping invalid wait profile entry: " + key);
+            }
+        }
+        Logger.debug(String.format("Loaded %d wait latencies from %s", stats.size(), FILE));
+    }
+
+    /***
+     * Writes the learned profile for the next run
+     */
+    public static void save() {
+        if (!ENABLED || stats.isEmpty()) {
+            return;
+        }
+
+        Properties props = new Properties();
+        stats.forEach((key, value) -> props.setProperty(key, value.format()));
+        try {
+            if (FILE.getParent() != null) {
+                Files.createDirectories(FILE.getParent());
+            }
+            try (OutputStream out = Files.newOutputStream(FILE)) {
+                props.store(out, "Wait latencies per condition and locator: samples,mean ms,deviation ms");
+            }
+        }
+        catch (Exception e) {
+            Logger.warn("Could not write wait profile " + FILE + ": " + e.getMessage());
+        }
+    }
+}
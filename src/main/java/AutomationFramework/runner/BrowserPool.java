@@ -0,0 +1,306 @@
+package AutomationFramework.runner;
+
+import AutomationFramework.utils.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/***
+ * Bounded pool of pre-launched browser sessions.
+ *
+ * Instead of quitting and launching Chrome for every test, a test leases a session and returns it when done.
+ * On return the session is reset (extra windows, storage, cookies, about:blank) and offered to the next test.
+ * A session is evicted (quit) when it was used maxReuse times, when its reset fails or when it fails the health
+ * check on lease.
+ */
+public class BrowserPool {
+    private static final String CLEAR_STORAGE_SCRIPT =
+            "try { window.localStorage.clear(); } catch (e) {}" +
+            "try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private final Supplier<WebDriver>                       launcher;
+    private final int                                       maxSize;
+    private final int                                       maxReuse;
+    private final LinkedBlockingDeque<WebDriver>            idle     = new LinkedBlockingDeque<>();
+    private final Map<WebDriver, AtomicInteger>             sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger                             size     = new AtomicInteger();
+    private volatile boolean                                closed;
+
+    private final LongAdder     leases          = new LongAdder();
+    private final LongAdder     leaseWaitMillis = new LongAdder();
+    private final AtomicLong    maxLeaseWait    = new AtomicLong();
+    private final LongAdder     launches        = new LongAdder();
+    private final LongAdder     resets          = new LongAdder();
+    private final LongAdder     evictions       = new LongAdder();
+
+    /***
+     * Creates an empty pool
+     *
+     * @param launcher      - launches a new browser session
+     * @param maxSize       - maximum number of sessions alive at the same time (leased + idle)
+     * @param maxReuse      - number of leases after which a session is quit instead of reset
+     */
+    public BrowserPool(Supplier<WebDriver> launcher, int maxSize, int maxReuse) {
+        this.launcher = launcher;
+        this.maxSize  = Math.max(1, maxSize);
+        this.maxReuse = Math.max(1, maxReuse);
+    }
+
+    /***
+     * Launches sessions up front so the first tests don't pay for the browser startup
+     *
+     * @param count         - number of sessions to pre-launch, bounded by the pool size
+     */
+    public void warmUp(int count) {
+        for (int i = 0; i < count && reserveSlot(); i++) {
+            WebDriver driver = launch();
+            if (driver != null) {
+                idle.offerLast(driver);
+            }
+        }
+    }
+
+    /***
+     * Leases a session. Reuses an idle one if possible, launches a new one if the pool is not full,
+     * otherwise waits for another test to return one.
+     *
+     * @param timeout       - max time to wait for a session
+     * @param unit          - time unit of the timeout
+     * @return              - a healthy session, owned by the caller until release()
+     * @throws IllegalStateException if no session became available within the timeout
+     */
+    public WebDriver lease(long timeout, TimeUnit unit) {
+        long start    = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+
+        try {
+            while (!closed) {
+                WebDriver driver = idle.pollFirst();
+                if (driver == null && reserveSlot()) {
+                    driver = launch();
+                }
+                if (driver == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    driver = idle.pollFirst(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(500)), TimeUnit.NANOSECONDS);
+                    if (driver == null) {
+                        continue;
+                    }
+                }
+
+                if (!isHealthy(driver)) {
+                    evict(driver, "failed health check");
+                    continue;
+                }
+
+                sessions.get(driver).incrementAndGet();
+                recordLease(System.nanoTime() - start);
+                return driver;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        throw new IllegalStateException(String.format("No browser session available within %d ms (pool size %d)",
+                unit.toMillis(timeout), maxSize));
+    }
+
+    /***
+     * Returns a leased session to the pool. The session is reset or evicted if it reached maxReuse.
+     *
+     * @param driver        - session obtained from lease()
+     */
+    public void release(WebDriver driver) {
+        AtomicInteger uses = driver == null ? null : sessions.get(driver);
+        if (uses == null) {
+            return;
+        }
+
+        if (closed) {
+            evict(driver, "pool closed");
+            return;
+        }
+
+        if (uses.get() >= maxReuse) {
+            evict(driver, "reached max reuse of " + maxReuse);
+            return;
+        }
+
+        try {
+            reset(driver);
+            resets.increment();
+            idle.offerFirst(driver);
+        }
+        catch (Exception e) {
+            evict(driver, "reset failed: " + e.getMessage());
+        }
+    }
+
+    /***
+     * Quits the given session and frees its slot. Used also when a test knows its browser is broken.
+     *
+     * @param driver        - session to remove
+     * @param reason        - reason logged for the eviction
+     */
+    public void evict(WebDriver driver, String reason) {
+        if (driver == null || sessions.remove(driver) == null) {
+            return;
+        }
+
+        idle.remove(driver);
+        size.decrementAndGet();
+        evictions.increment();
+        Logger.info("Evicted browser session: " + reason);
+        try {
+            driver.quit();
+        }
+        catch (Exception e) {
+            Logger.debug("Quit of evicted session failed: " + e.getMessage());
+        }
+    }
+
+    /***
+     * @param driver        - a web driver
+     * @return              - true if the session was launched by this pool and was not evicted yet
+     */
+    public boolean owns(WebDriver driver) {
+        return driver != null && sessions.containsKey(driver);
+    }
+
+    /***
+     * Quits every session, leased or idle. The pool can't be used afterwards.
+     */
+    public void shutdown() {
+        closed = true;
+        List<WebDriver> all = new ArrayList<>(sessions.keySet());
+        for (WebDriver driver : all) {
+            evict(driver, "pool shutdown");
+        }
+        Logger.info(metricsSummary());
+    }
+
+    /***
+     * Brings a session back to a neutral state: one window, no storage, no cookies, blank page
+     *
+     * @param driver        - session to reset
+     */
+    private void reset(WebDriver driver) {
+        List<String> handles = new ArrayList<>(driver.getWindowHandles());
+        for (int i = 1; i < handles.size(); i++) {
+            driver.switchTo().window(handles.get(i)).close();
+        }
+        driver.switchTo().window(handles.get(0));
+
+        // storage and cookies are bound to the current origin, so clear them before leaving the page
+        ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+        driver.manage().deleteAllCookies();
+        driver.get("about:blank");
+    }
+
+    /***
+     * Cheap health check: a session that can't report its window handle is considered broken
+     *
+     * @param driver        - session to check
+     * @return              - true if the session answered
+     */
+    private boolean isHealthy(WebDriver driver) {
+        try {
+            return driver.getWindowHandle() != null;
+        }
+        catch (Exception e) {
+            return false;
+        }
+    }
+
+    /***
+     * Reserves one slot for a new session if the pool is not full. Also used by SessionPrewarmer for the session
+     * it launches in the background.
+     *
+     * @return              - true if a slot was reserved
+     */
+    boolean reserveSlot() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /***
+     * Frees a slot reserved with reserveSlot() that no pooled session took
+     */
+    void freeSlot() {
+        size.decrementAndGet();
+    }
+
+    /***
+     * Launches a new session on an already reserved slot. The slot is freed if the launch fails.
+     *
+     * @return              - the new session or null if the launch failed
+     */
+    private WebDriver launch() {
+        try {
+            WebDriver driver = launcher.get();
+            if (driver == null) {
+                throw new IllegalStateException("launcher returned no session");
+            }
+            sessions.put(driver, new AtomicInteger());
+            launches.increment();
+            return driver;
+        }
+        catch (Exception e) {
+            size.decrementAndGet();
+            Logger.error("Failed to launch pooled browser session: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /***
+     * Records how long a lease waited
+     *
+     * @param waitNanos     - time spent in lease()
+     */
+    private void recordLease(long waitNanos) {
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        leases.increment();
+        leaseWaitMillis.add(waitMillis);
+        maxLeaseWait.accumulateAndGet(waitMillis, Math::max);
+    }
+
+    public long getLeaseCount()         { return leases.sum(); }
+    public long getLeaseWaitMillis()    { return leaseWaitMillis.sum(); }
+    public long getMaxLeaseWaitMillis() { return maxLeaseWait.get(); }
+    public long getLaunchCount()        { return launches.sum(); }
+    public long getResetCount()         { return resets.sum(); }
+    public long getEvictionCount()      { return evictions.sum(); }
+    public int  getSize()               { return size.get(); }
+    public int  getIdleCount()          { return idle.size(); }
+    public int  getMaxSize()            { return maxSize; }
+
+    /***
+     * @return              - one line summary of the pool metrics
+     */
+    public String metricsSummary() {
+        long count = getLeaseCount();
+        return String.format("Browser pool: %d leases, avg lease wait %d ms, max lease wait %d ms, %d launches, %d resets, %d evictions",
+                count, count == 0 ? 0 : getLeaseWaitMillis() / count, getMaxLeaseWaitMillis(),
+                getLaunchCount(), getResetCount(), getEvictionCount());
+    }
+}
@@ -0,0 +1,121 @@
+package AutomationFramework.runner;
+
+import AutomationFramework.utils.AppConfig;
+import AutomationFramework.utils.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/***
+ * Default DriverFactory, launches Chrome sessions.
+ *
+ * One chromedriver process (ChromeDriverService) is started per JVM and every session talks to it, instead of
+ * every new ChromeDriver() spawning its own chromedriver. Sessions are RemoteWebDrivers bound to the service url,
+ * since ChromeDriver.quit() would also stop the shared service.
+ *
+ * Settings (appConfig.properties):
+ *   driver.chrome.path     - chromedriver executable (default: src/main/resources/chromedriver)
+ *   driver.headless        - run Chrome headless (default: false)
+ *   driver.windowSize      - fixed window size as "width,height" (default: 1920,1080)
+ *   driver.chrome.args     - extra comma separated Chrome arguments
+ *   driver.pageLoadStrategy - normal, eager or none (default: normal)
+ *   commands.stats.enabled - send the commands through a CommandRecorder (default: true)
+ */
+public class ChromeDriverFactory implements DriverFactory {
+
+    // Chrome features that only cost startup time and background work in a test browser
+    private static final List<String> LAUNCH_ARGUMENTS = Arrays.asList(
+            "--disable-extensions",
+            "--disable-default-apps",
+            "--disable-sync",
+            "--disable-background-networking",
+            "--disable-background-timer-throttling",
+            "--disable-renderer-backgrounding",
+            "--disable-backgrounding-occluded-windows",
+            "--disable-dev-shm-usage",
+            "--disable-notifications",
+            "--no-first-run",
+            "--no-default-browser-check",
+            "--mute-audio");
+
+    private ChromeDriverService service;
+    private boolean             shutdownHookAdded;
+
+    @Override
+    public WebDriver create() {
+        if (!AppConfig.getBoolean("commands.stats.enabled", true)) {
+            return new RemoteWebDriver(getService().getUrl(), createOptions());
+        }
+        return new RemoteWebDriver(new CommandRecorder(new HttpCommandExecutor(getService().getUrl())), createOptions());
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (service != null && service.isRunning()) {
+            service.stop();
+            Logger.info("Stopped shared ChromeDriverService");
+        }
+        service = null;
+    }
+
+    /***
+     * Builds the Chrome options used by every session
+     *
+     * @return              - options with headless mode, window size and launch arguments applied
+     */
+    protected ChromeOptions createOptions() {
+        ChromeOptions options = new ChromeOptions();
+        options.setHeadless(AppConfig.getBoolean("driver.headless", false));
+        options.setPageLoadStrategy(WebDriverManager.getPageLoadStrategy());
+        options.addArguments("--window-size=" + AppConfig.getString("driver.windowSize", "1920,1080"));
+        options.addArguments(LAUNCH_ARGUMENTS);
+
+        String extraArguments = AppConfig.getString("driver.chrome.args", "");
+        for (String argument : extraArguments.split(",")) {
+            if (!argument.trim().isEmpty()) {
+                options.addArguments(argument.trim());
+            }
+        }
+        return options;
+    }
+
+    /***
+     * Gets the shared driver service, starting it on first use
+     *
+     * @return              - the running ChromeDriverService
+     */
+    private synchronized ChromeDriverService getService() {
+        if (service != null && service.isRunning()) {
+            return service;
+        }
+
+        String driverPath = AppConfig.getString("driver.chrome.path",
+                System.getProperty("user.dir") + "/src/main/resources/chromedriver");
+        service = new ChromeDriverService.Builder()
+                .usingDriverExecutable(new File(driverPath))
+                .usingAnyFreePort()
+                .build();
+        try {
+            service.start();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not start ChromeDriverService: " + e.getMessage(), e);
+        }
+
+        if (!shutdownHookAdded) {
+            // don't leave the chromedriver process behind if the suite ends without WebDriverManager.stopAll()
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+            shutdownHookAdded = true;
+        }
+
+        Logger.info("Started shared ChromeDriverService on " + service.getUrl());
+        return service;
+    }
+}
@@ -0,0 +1,47 @@
+package AutomationFramework.runner;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.Response;
+
+import java.io.IOException;
+
+/***
+ * CommandExecutor decorator timing every WebDriver command of a session and handing it to CommandStats.
+ *
+ * Every round trip goes through the executor of a RemoteWebDriver: driver calls (findElement, executeScript,
+ * actions...) and WebElement calls (isDisplayed, getText, click...) alike, so nothing is missed. A DriverFactory
+ * installs it when building the session:
+ *
+ *     new RemoteWebDriver(new CommandRecorder(new HttpCommandExecutor(url)), options)
+ */
+public class CommandRecorder implements CommandExecutor {
+    private final CommandExecutor delegate;
+
+    /***
+     * @param delegate          - executor sending the commands to the driver server
+     */
+    public CommandRecorder(CommandExecutor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        long start = System.nanoTime();
+        Response response = null;
+        try {
+            response = delegate.execute(command);
+            return response;
+        }
+        finally {
+            CommandStats.record(command, response, System.nanoTime() - start);
+        }
+    }
+
+    /***
+     * @return                  - the decorated executor
+     */
+    public CommandExecutor getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,384 @@
+package AutomationFramework.runner;
+
+import AutomationFramework.exceptions.CommandBudgetExceededException;
+import AutomationFramework.interactions.ElementLocators;
+import AutomationFramework.utils.AppConfig;
+import AutomationFramework.utils.Metrics;
+import org.openqa.selenium.By;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * WebDriver round trips recorded by CommandRecorder, counted per command for the whole run and, between
+ * startTest and endTest, per command and per locator for the test of the current thread.
+ *
+ * A command on an element (isDisplayed, getText, click...) is counted for the locator the element was found with,
+ * a script lookup (ScriptLookup) for its locator through attributeLastCommand.
+ * The commands of a test can be limited with a budget (commands.budget or setBudget): endTest reports a test going
+ * over it, so a framework change making a flow chattier fails the test instead of only slowing the suite down.
+ */
+public abstract class CommandStats {
+    private static final String     W3C_ELEMENT     = "element-6066-11e4-a52e-4f735466cecf";
+    private static final String     LEGACY_ELEMENT  = "ELEMENT";
+    private static final List<String> FIND_COMMANDS = Arrays.asList(DriverCommand.FIND_ELEMENT, DriverCommand.FIND_ELEMENTS,
+            DriverCommand.FIND_CHILD_ELEMENT, DriverCommand.FIND_CHILD_ELEMENTS);
+    // "using" of a find command -> name of the By it comes from, so both give the same locator key
+    private static final Map<String, String> BY_NAMES = new HashMap<>();
+    static {
+        BY_NAMES.put("id", "id");
+        BY_NAMES.put("name", "name");
+        BY_NAMES.put("class name", "className");
+        BY_NAMES.put("css selector", "cssSelector");
+        BY_NAMES.put("tag name", "tagName");
+        BY_NAMES.put("link text", "linkText");
+        BY_NAMES.put("partial link text", "partialLinkText");
+        BY_NAMES.put("xpath", "xpath");
+    }
+
+    private static final int                        DEFAULT_BUDGET = AppConfig.getInt("commands.budget", 0);
+    private static final Map<String, LongAdder>     totals      = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder>     totalNanos  = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Report>        report      = new ThreadLocal<>();
+    private static final Metrics.Histogram          LATENCY     = Metrics.histogram("webdriver.command.latency");
+    private static final Metrics.Counter            FAILURES    = Metrics.counter("webdriver.command.failures");
+
+    /***
+     * Latencies of a group of commands
+     */
+    public static class Latencies {
+        private long[]  nanos = new long[16];
+        private int     count;
+
+        private void add(long value) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+        }
+
+        /***
+         * @return              - number of commands
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /***
+         * @param percentile    - percentile, between 0 and 100
+         * @return              - latency at this percentile (nearest rank), 0 if there is no command
+         */
+        public double percentileMillis(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * count);
+            return sorted[Math.min(count, Math.max(1, rank)) - 1] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d (p50 %.1f ms, p90 %.1f ms, p99 %.1f ms)",
+                    count, percentileMillis(50), percentileMillis(90), percentileMillis(99));
+        }
+    }
+
+    /***
+     * Commands of one test
+     */
+    public static class Report {
+        private final String                    test;
+        private int                             budget = DEFAULT_BUDGET;
+        private final Latencies                 all         = new Latencies();
+        private final Map<String, Latencies>    byCommand   = new HashMap<>();
+        private final Map<String, Latencies>    byLocator   = new HashMap<>();
+        // element id -> locator it was found with
+        private final Map<String, String>       locators    = new HashMap<>();
+        private int                             failures;
+        private long                            lastNanos;
+
+        private Report(String test) {
+            this.test = test;
+        }
+
+        /***
+         * @return              - test name
+         */
+        public String getTest() {
+            return test;
+        }
+
+        /***
+         * @return              - number of commands sent during the test
+         */
+        public int getCommandCount() {
+            return all.getCount();
+        }
+
+        /***
+         * @return              - number of commands which failed (no response or an error response)
+         */
+        public int getFailureCount() {
+            return failures;
+        }
+
+        /***
+         * @return              - latencies of all the commands of the test
+         */
+        public Latencies getLatencies() {
+            return all;
+        }
+
+        /***
+         * @param command       - command name, e.g. DriverCommand.FIND_ELEMENT
+         * @return              - latencies of this command, null if it was never sent
+         */
+        public Latencies getCommand(String command) {
+            return byCommand.get(command);
+        }
+
+        /***
+         * @param locator       - locator key, see locatorKey(By), e.g. "By.cssSelector: #submit"
+         * @return              - latencies of the lookups and element commands of this locator, null if never used
+         */
+        public Latencies getLocator(String locator) {
+            return byLocator.get(locator);
+        }
+
+        /***
+         * @return              - max number of commands, 0 for no budget
+         */
+        public int getBudget() {
+            return budget;
+        }
+
+        /***
+         * @return              - true if the test sent more commands than its budget
+         */
+        public boolean isOverBudget() {
+            return budget > 0 && all.getCount() > budget;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder(String.format("WebDriver commands of %s: %s, %d failed", test, all, failures));
+            if (budget > 0) {
+                summary.append(String.format(", budget %d", budget));
+            }
+            append(summary, "by command", byCommand);
+            append(summary, "by locator", byLocator);
+            return summary.toString();
+        }
+
+        private static void append(StringBuilder summary, String title, Map<String, Latencies> groups) {
+            if (groups.isEmpty()) {
+                return;
+            }
+            summary.append(String.format("%n  %s:", title));
+            groups.entrySet().stream()
+                    .sorted((a, b) -> Integer.compare(b.getValue().getCount(), a.getValue().getCount()))
+                    .forEach(e -> summary.append(String.format("%n    %s: %s", e.getKey(), e.getValue())));
+        }
+    }
+
+    /***
+     * Records a command, called by CommandRecorder on the thread sending it
+     *
+     * @param command           - the command
+     * @param response          - its response, null if it failed
+     * @param nanos             - round trip time
+     */
+    static void record(Command command, Response response, long nanos) {
+        String name = command.getName();
+        totals.computeIfAbsent(name, k -> new LongAdder()).increment();
+        totalNanos.computeIfAbsent(name, k -> new LongAdder()).add(nanos);
+        LATENCY.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        boolean failed = isFailure(response);
+        if (failed) {
+            FAILURES.increment();
+        }
+
+        Report current = report.get();
+        if (current == null) {
+            return;
+        }
+        if (failed) {
+            current.failures++;
+        }
+        current.lastNanos = nanos;
+        current.all.add(nanos);
+        current.byCommand.computeIfAbsent(name, k -> new Latencies()).add(nanos);
+
+        Map<String, ?> parameters = command.getParameters();
+        String locator = null;
+        if (FIND_COMMANDS.contains(name)) {
+            locator = locatorKey(String.valueOf(parameters.get("using")), parameters.get("value"));
+            if (response != null) {
+                rememberElements(current, locator, response.getValue());
+            }
+        }
+        else if (parameters.get("id") != null) {
+            String id = String.valueOf(parameters.get("id"));
+            locator = current.locators.get(id);
+            if (locator == null) {
+                // found by a script (ScriptLookup), not by a find command
+                By by = ElementLocators.locatorOf(id);
+                locator = by == null ? null : locatorKey(by);
+            }
+        }
+        if (locator != null) {
+            current.byLocator.computeIfAbsent(locator, k -> new Latencies()).add(nanos);
+        }
+    }
+
+    /***
+     * @param response          - response of a command, null if it failed without one
+     * @return                  - true for no response or a W3C / legacy error response
+     */
+    private static boolean isFailure(Response response) {
+        if (response == null) {
+            return true;
+        }
+        Object value = response.getValue();
+        return (response.getStatus() != null && response.getStatus() != 0)
+                || value instanceof Throwable
+                || (value instanceof Map && ((Map<?, ?>) value).containsKey("error"));
+    }
+
+    /***
+     * Key a locator is counted under, the same for find commands, script lookups and element commands
+     *
+     * @param by                - selenium By
+     * @return                  - locator key, e.g. "By.id: userName"
+     */
+    public static String locatorKey(By by) {
+        return by.toString();
+    }
+
+    /***
+     * Key of the locator of a find command, see locatorKey(By)
+     *
+     * @param using             - "using" parameter of the command, e.g. "css selector"
+     * @param value             - "value" parameter of the command
+     * @return                  - locator key, e.g. "By.cssSelector: #submit"
+     */
+    private static String locatorKey(String using, Object value) {
+        return "By." + BY_NAMES.getOrDefault(using, using) + ": " + value;
+    }
+
+    /***
+     * Counts the last command of the current thread for a locator, for commands that looked an element up without
+     * a find command (the lookup script of ScriptLookup)
+     *
+     * @param by                - locator of the lookup
+     */
+    public static void attributeLastCommand(By by) {
+        Report current = report.get();
+        if (current != null && current.lastNanos > 0) {
+            current.byLocator.computeIfAbsent(locatorKey(by), k -> new Latencies()).add(current.lastNanos);
+            current.lastNanos = 0;
+        }
+    }
+
+    private static void rememberElements(Report current, String locator, Object value) {
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                rememberElements(current, locator, element);
+            }
+        }
+        else if (value instanceof Map) {
+            Object id = ((Map<?, ?>) value).get(W3C_ELEMENT);
+            if (id == null) {
+                id = ((Map<?, ?>) value).get(LEGACY_ELEMENT);
+            }
+            if (id != null) {
+                current.locators.put(String.valueOf(id), locator);
+            }
+        }
+    }
+
+    /***
+     * Starts counting the commands of the current thread for a test, with the default budget (commands.budget)
+     *
+     * @param test              - test name
+     */
+    public static void startTest(String test) {
+        report.set(new Report(test));
+    }
+
+    /***
+     * Sets the command budget of the current test
+     *
+     * @param maxCommands       - max number of commands, 0 for no budget
+     */
+    public static void setBudget(int maxCommands) {
+        Report current = report.get();
+        if (current != null) {
+            current.budget = maxCommands;
+        }
+    }
+
+    /***
+     * @return                  - number of commands sent so far by the current test, 0 outside a test
+     */
+    public static int getCommandCount() {
+        Report current = report.get();
+        return current == null ? 0 : current.getCommandCount();
+    }
+
+    /***
+     * Fails if the current test already went over its budget
+     *
+     * @throws CommandBudgetExceededException - if it did, with the commands of the test
+     */
+    public static void assertWithinBudget() throws CommandBudgetExceededException {
+        Report current = report.get();
+        if (current != null && current.isOverBudget()) {
+            throw new CommandBudgetExceededException(current.toString());
+        }
+    }
+
+    /***
+     * Stops counting the commands of the current thread
+     *
+     * @return                  - the commands of the test, null if no test was started
+     */
+    public static Report endTest() {
+        Report current = report.get();
+        report.remove();
+        return current;
+    }
+
+    /***
+     * @return                  - commands sent by all the sessions since the start, one line per command
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder("WebDriver commands:");
+        totals.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(e -> {
+                    long count = e.getValue().sum();
+                    long nanos = totalNanos.getOrDefault(e.getKey(), new LongAdder()).sum();
+                    summary.append(String.format("%n  %s: %d, %.1f ms avg", e.getKey(), count,
+                            count == 0 ? 0.0 : nanos / 1e6 / count));
+                });
+        return summary.toString();
+    }
+
+    /***
+     * @return                  - total time spent in round trips by all the sessions since the start
+     */
+    public static long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos.values().stream().mapToLong(LongAdder::sum).sum());
+    }
+}
@@ -0,0 +1,24 @@
+package AutomationFramework.runner;
+
+import org.openqa.selenium.WebDriver;
+
+/***
+ * Creates browser sessions for WebDriverManager.
+ *
+ * Implementations own whatever is shared between sessions (driver service process, options)
+ * and release it in shutdown(). Use WebDriverManager.setDriverFactory to plug in another browser or a grid.
+ */
+public interface DriverFactory {
+
+    /***
+     * Launches a new browser session
+     *
+     * @return              - the new web driver, ready to be used
+     */
+    WebDriver create();
+
+    /***
+     * Releases the resources shared by the sessions of this factory. Called once at the end of the suite.
+     */
+    void shutdown();
+}
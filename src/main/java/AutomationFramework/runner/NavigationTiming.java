@@ -0,0 +1,142 @@
+package AutomationFramework.runner;
+
+import AutomationFramework.utils.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * Navigation Timing breakdown of one page load, read from the browser (performance.getEntriesByType("navigation"))
+ * right after WebDriverManager.openURLPage. All values are in milliseconds; a phase which did not happen yet
+ * (e.g. load with the "none" page load strategy) is -1.
+ *
+ * The totals of every recorded navigation are kept so the suite can tell where navigation time goes.
+ */
+public class NavigationTiming {
+    private static final String TIMING_SCRIPT =
+            "var n = performance.getEntriesByType ? performance.getEntriesByType('navigation')[0] : null;" +
+            "if (!n) {" +
+            "  var t = performance.timing, s = t.navigationStart;" +
+            "  n = { startTime: 0, domainLookupStart: t.domainLookupStart - s, domainLookupEnd: t.domainLookupEnd - s," +
+            "        connectStart: t.connectStart - s, connectEnd: t.connectEnd - s, responseStart: t.responseStart - s," +
+            "        domContentLoadedEventEnd: t.domContentLoadedEventEnd > 0 ? t.domContentLoadedEventEnd - s : 0," +
+            "        loadEventEnd: t.loadEventEnd > 0 ? t.loadEventEnd - s : 0 };" +
+            "}" +
+            "return { dns: n.domainLookupEnd - n.domainLookupStart, connect: n.connectEnd - n.connectStart," +
+            "         ttfb: n.responseStart - n.startTime," +
+            "         domContentLoaded: n.domContentLoadedEventEnd > 0 ? n.domContentLoadedEventEnd - n.startTime : -1," +
+            "         load: n.loadEventEnd > 0 ? n.loadEventEnd - n.startTime : -1 };";
+
+    private static final LongAdder navigations      = new LongAdder();
+    private static final Phase     dnsPhase         = new Phase();
+    private static final Phase     connectPhase     = new Phase();
+    private static final Phase     ttfbPhase        = new Phase();
+    private static final Phase     domContentLoadedPhase = new Phase();
+    private static final Phase     loadPhase        = new Phase();
+
+    /***
+     * Suite total of one phase, over the navigations which reached it
+     */
+    private static class Phase {
+        final LongAdder total = new LongAdder();
+        final LongAdder count = new LongAdder();
+
+        void add(long millis) {
+            // -1: not reached (e.g. "eager" / "none" load strategy), left out instead of averaged as 0
+            if (millis >= 0) {
+                total.add(millis);
+                count.increment();
+            }
+        }
+
+        String average() {
+            long n = count.sum();
+            return n == 0 ? "n/a" : String.valueOf(total.sum() / n);
+        }
+    }
+
+    public final String url;
+    public final long   dns;
+    public final long   connect;
+    public final long   ttfb;
+    public final long   domContentLoaded;
+    public final long   load;
+    public final long   navigationMillis;
+
+    private NavigationTiming(String url, long dns, long connect, long ttfb, long domContentLoaded, long load, long navigationMillis) {
+        this.url              = url;
+        this.dns              = dns;
+        this.connect          = connect;
+        this.ttfb             = ttfb;
+        this.domContentLoaded = domContentLoaded;
+        this.load             = load;
+        this.navigationMillis = navigationMillis;
+    }
+
+    /***
+     * Reads the timing of the last navigation of the given session and adds it to the suite totals
+     *
+     * @param driver            - session which just navigated
+     * @param url               - requested url
+     * @param navigationMillis  - time the framework spent in openURLPage (driver.get + readiness wait)
+     * @return                  - the timing breakdown or null if the browser could not provide it
+     */
+    static NavigationTiming capture(WebDriver driver, String url, long navigationMillis) {
+        try {
+            @SuppressWarnings(value = "unchecked")
+            Map<String, Object> values = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(TIMING_SCRIPT);
+            NavigationTiming timing = new NavigationTiming(url, value(values, "dns"), value(values, "connect"),
+                    value(values, "ttfb"), value(values, "domContentLoaded"), value(values, "load"), navigationMillis);
+            timing.record();
+            return timing;
+        }
+        catch (Exception e) {
+            Logger.debug(() -> "Navigation timing not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /***
+     * @param values            - map returned by the timing script
+     * @param key               - phase name
+     * @return                  - rounded phase duration in milliseconds
+     */
+    private static long value(Map<String, Object> values, String key) {
+        Object value = values.get(key);
+        return value instanceof Number ? Math.round(((Number) value).doubleValue()) : -1;
+    }
+
+    /***
+     * Adds this navigation to the suite totals
+     */
+    private void record() {
+        navigations.increment();
+        dnsPhase.add(dns);
+        connectPhase.add(connect);
+        ttfbPhase.add(ttfb);
+        domContentLoadedPhase.add(domContentLoaded);
+        loadPhase.add(load);
+    }
+
+    /***
+     * @return                  - averages of every navigation recorded so far, each phase over the navigations
+     *                            which reached it
+     */
+    public static String summary() {
+        long count = navigations.sum();
+        if (count == 0) {
+            return "Navigation timing: no navigations recorded";
+        }
+        return String.format("Navigation timing over %d navigations (avg ms): dns %s, connect %s, ttfb %s, domContentLoaded %s, load %s",
+                count, dnsPhase.average(), connectPhase.average(), ttfbPhase.average(),
+                domContentLoadedPhase.average(), loadPhase.average());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: dns %d ms, connect %d ms, ttfb %d ms, domContentLoaded %d ms, load %d ms (openURLPage took %d ms)",
+                url, dns, connect, ttfb, domContentLoaded, load, navigationMillis);
+    }
+}
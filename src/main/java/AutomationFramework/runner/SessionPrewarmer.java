@@ -0,0 +1,203 @@
+package AutomationFramework.runner;
+
+import AutomationFramework.utils.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/***
+ * Keeps one browser session launching in the background so the next caller that needs a brand new browser
+ * (first test of a thread, after a crash, after resetDriver(true)...) gets it instantly instead of waiting
+ * for Chrome to start.
+ *
+ * The session on its way counts as a running browser: before launching it the pre-warmer reserves a slot from its
+ * SlotReserver (a BrowserPool slot when the pool is used) and holds it until the session is handed over, so the
+ * warming session and the pooled ones never go over the pool size.
+ */
+class SessionPrewarmer {
+    /***
+     * Reserves the slot of a background launch
+     */
+    interface SlotReserver {
+        /***
+         * @return          - frees the reserved slot, null if no slot is free
+         */
+        Runnable reserve();
+    }
+
+    private final Supplier<WebDriver>   launcher;
+    private final SlotReserver          slots;
+    private final ExecutorService       executor;
+    private Future<WarmSession>         next;
+    private Runnable                    nextSlot;
+
+    private final LongAdder handovers       = new LongAdder();
+    private final LongAdder hiddenMillis    = new LongAdder();
+
+    /***
+     * A session launched in the background along with how long the launch took
+     */
+    private static class WarmSession {
+        final WebDriver driver;
+        final long      launchMillis;
+
+        WarmSession(WebDriver driver, long launchMillis) {
+            this.driver       = driver;
+            this.launchMillis = launchMillis;
+        }
+    }
+
+    /***
+     * @param launcher      - launches a new browser session, called on the background thread
+     */
+    SessionPrewarmer(Supplier<WebDriver> launcher) {
+        this(launcher, () -> () -> { });
+    }
+
+    /***
+     * @param launcher      - launches a new browser session, called on the background thread
+     * @param slots         - reserves the slot of every background launch
+     */
+    SessionPrewarmer(Supplier<WebDriver> launcher, SlotReserver slots) {
+        this.launcher = launcher;
+        this.slots    = slots;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "browser-prewarm");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /***
+     * Starts launching a session in the background if one is not already on its way and a slot is free
+     */
+    synchronized void prewarm() {
+        if (next != null || executor.isShutdown()) {
+            return;
+        }
+        Runnable reserved = slots.reserve();
+        if (reserved == null) {
+            return;
+        }
+
+        Runnable slot = once(reserved);
+        nextSlot = slot;
+        next = executor.submit(() -> {
+            long start = System.nanoTime();
+            WebDriver driver = null;
+            try {
+                driver = launcher.get();
+                return new WarmSession(driver, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            finally {
+                if (driver == null) {
+                    slot.run();
+                }
+            }
+        });
+    }
+
+    /***
+     * Hands over the pre-warmed session, waiting for it if it's still starting, and starts warming the next one.
+     * Without a session on its way, launches one on the calling thread.
+     * The caller accounts for the session it gets (the pool reserved a slot before launching), so the slot held
+     * by the pre-warmed session is freed on hand over, for the next one to take.
+     *
+     * @return              - a new session or null if the launch failed
+     */
+    WebDriver take() {
+        Future<WarmSession> pending;
+        synchronized (this) {
+            pending = next;
+            if (pending != null) {
+                nextSlot.run();
+            }
+            next = null;
+            nextSlot = null;
+            prewarm();
+        }
+
+        if (pending == null) {
+            return launcher.get();
+        }
+
+        long start = System.nanoTime();
+        try {
+            WarmSession session = pending.get();
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (session.driver == null) {
+                return null;
+            }
+
+            long hidden = Math.max(0, session.launchMillis - waitedMillis);
+            handovers.increment();
+            hiddenMillis.add(hidden);
+            Logger.info(String.format("Handed over pre-warmed browser session, %d ms of %d ms startup hidden",
+                    hidden, session.launchMillis));
+            return session.driver;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException e) {
+            Logger.error("Background browser launch failed: " + e.getCause());
+            return null;
+        }
+    }
+
+    /***
+     * Stops warming sessions, quits the one that was not handed over and frees its slot
+     */
+    void shutdown() {
+        Future<WarmSession> pending;
+        Runnable slot;
+        synchronized (this) {
+            executor.shutdown();
+            pending = next;
+            slot = nextSlot;
+            next = null;
+            nextSlot = null;
+        }
+
+        if (pending != null) {
+            try {
+                WarmSession session = pending.get();
+                if (session.driver != null) {
+                    session.driver.quit();
+                }
+            }
+            catch (Exception e) {
+                Logger.debug("Unused pre-warmed session could not be closed: " + e.getMessage());
+            }
+            finally {
+                slot.run();
+            }
+        }
+        Logger.info(String.format("Browser pre-warming: %d sessions handed over, %d ms startup hidden",
+                getHandoverCount(), getHiddenStartupMillis()));
+    }
+
+    /***
+     * @param release       - frees a slot
+     * @return              - frees the slot the first time it's run, does nothing afterwards
+     */
+    private static Runnable once(Runnable release) {
+        AtomicBoolean held = new AtomicBoolean(true);
+        return () -> {
+            if (held.compareAndSet(true, false)) {
+                release.run();
+            }
+        };
+    }
+
+    long getHandoverCount()         { return handovers.sum(); }
+    long getHiddenStartupMillis()   { return hiddenMillis.sum(); }
+}
@@ -0,0 +1,88 @@
+package AutomationFramework.runner;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Thread confined registry of WebDriver sessions.
+ *
+ * Every thread owns at most one session. The interaction helpers resolve the driver through WebDriverManager,
+ * which reads it from here, so tests running in parallel (TestNG parallel="methods") each get their own browser
+ * without any change in the page objects.
+ */
+class SessionRegistry {
+    private static final ThreadLocal<WebDriver>       current  = new ThreadLocal<>();
+    private static final Map<WebDriver, String>       sessions = new ConcurrentHashMap<>();
+
+    /***
+     * @return              - the session bound to the calling thread or null if none
+     */
+    static WebDriver get() {
+        return current.get();
+    }
+
+    /***
+     * Binds the given session to the calling thread
+     *
+     * @param driver        - session to bind, null unbinds the current one
+     */
+    static void set(WebDriver driver) {
+        WebDriver previous = current.get();
+        if (previous != null && previous != driver) {
+            sessions.remove(previous);
+        }
+
+        if (driver == null) {
+            current.remove();
+            return;
+        }
+
+        current.set(driver);
+        sessions.put(driver, Thread.currentThread().getName());
+    }
+
+    /***
+     * Unbinds and returns the session of the calling thread
+     *
+     * @return              - the removed session or null if the thread had none
+     */
+    static WebDriver remove() {
+        WebDriver driver = current.get();
+        current.remove();
+        if (driver != null) {
+            sessions.remove(driver);
+        }
+        return driver;
+    }
+
+    /***
+     * Removes every session from the registry. Threads still holding a reference will see it on their next get(),
+     * so this is meant to be used only at the end of the suite.
+     *
+     * @return              - snapshot of all the sessions that were registered
+     */
+    static List<WebDriver> removeAll() {
+        List<WebDriver> all = new ArrayList<>(sessions.keySet());
+        sessions.clear();
+        current.remove();
+        return all;
+    }
+
+    /***
+     * @return              - snapshot of the sessions currently bound to a thread
+     */
+    static List<WebDriver> all() {
+        return new ArrayList<>(sessions.keySet());
+    }
+
+    /***
+     * @return              - number of sessions currently bound to a thread
+     */
+    static int size() {
+        return sessions.size();
+    }
+}
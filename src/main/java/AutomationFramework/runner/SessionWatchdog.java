@@ -0,0 +1,190 @@
+package AutomationFramework.runner;
+
+import AutomationFramework.utils.Logger;
+import AutomationFramework.utils.Metrics;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Watches the active browser sessions and marks the dead ones right away.
+ *
+ * A daemon thread probes every session registered in SessionRegistry. The probe is a plain http call to the
+ * driver server (GET /session/{id}/window) which doesn't go through the session's own command executor.
+ * Only a refused connection or an "invalid session id" answer mark a session dead; a slow answer (e.g. the page
+ * is still loading) is not a sign of a dead browser. Waits check the flag and fail fast with SessionDeadException
+ * instead of burning their whole timeout.
+ */
+class SessionWatchdog {
+    enum Liveness { ALIVE, DEAD, UNKNOWN }
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 500;
+    private static final Metrics.Counter DEAD_SESSIONS = Metrics.counter("sessions.dead");
+
+    private final Set<WebDriver>            dead = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final int                       probeTimeoutMillis;
+    private ScheduledExecutorService        executor;
+
+    /***
+     * @param probeTimeoutMillis    - read timeout of a single probe
+     */
+    SessionWatchdog(int probeTimeoutMillis) {
+        this.probeTimeoutMillis = probeTimeoutMillis;
+    }
+
+    /***
+     * Starts probing the registered sessions periodically
+     *
+     * @param intervalMillis        - time between two probe rounds
+     */
+    synchronized void start(long intervalMillis) {
+        if (executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::probeAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /***
+     * Stops the watchdog thread
+     */
+    synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        dead.clear();
+    }
+
+    /***
+     * @param driver                - session to check
+     * @return                      - true if the session was marked dead
+     */
+    boolean isDead(WebDriver driver) {
+        return driver != null && dead.contains(driver);
+    }
+
+    /***
+     * Marks a session as dead, e.g. when a command already failed with "session not found"
+     *
+     * @param driver                - the dead session
+     * @param reason                - reason logged once
+     */
+    void markDead(WebDriver driver, String reason) {
+        if (driver != null && dead.add(driver)) {
+            DEAD_SESSIONS.increment();
+            Logger.error("Browser session marked dead: " + reason);
+        }
+    }
+
+    /***
+     * Forgets a session that was quit
+     *
+     * @param driver                - session no longer in use
+     */
+    void forget(WebDriver driver) {
+        if (driver != null) {
+            dead.remove(driver);
+        }
+    }
+
+    /***
+     * Probes every session currently bound to a thread
+     */
+    private void probeAll() {
+        for (WebDriver driver : SessionRegistry.all()) {
+            if (!isDead(driver) && probe(driver) == Liveness.DEAD) {
+                markDead(driver, "watchdog probe failed");
+            }
+        }
+    }
+
+    /***
+     * Lightweight liveness probe of a session
+     *
+     * @param driver                - session to probe
+     * @return                      - ALIVE, DEAD or UNKNOWN if the probe was not conclusive (slow answer, not a remote driver)
+     */
+    Liveness probe(WebDriver driver) {
+        if (!(driver instanceof RemoteWebDriver)) {
+            return Liveness.UNKNOWN;
+        }
+
+        RemoteWebDriver remote = (RemoteWebDriver) driver;
+        SessionId sessionId = remote.getSessionId();
+        CommandExecutor executor = remote.getCommandExecutor();
+        if (executor instanceof CommandRecorder) {
+            executor = ((CommandRecorder) executor).getDelegate();
+        }
+        if (sessionId == null) {
+            return Liveness.DEAD;
+        }
+        if (!(executor instanceof HttpCommandExecutor)) {
+            return Liveness.UNKNOWN;
+        }
+
+        HttpURLConnection connection = null;
+        try {
+            URL server = ((HttpCommandExecutor) executor).getAddressOfRemoteServer();
+            connection = (HttpURLConnection) new URL(server, server.getPath() + "/session/" + sessionId + "/window").openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(probeTimeoutMillis);
+
+            int status = connection.getResponseCode();
+            if (status < 400) {
+                return Liveness.ALIVE;
+            }
+            return readBody(connection).contains("invalid session id") ? Liveness.DEAD : Liveness.ALIVE;
+        }
+        catch (ConnectException e) {
+            return Liveness.DEAD;
+        }
+        catch (IOException e) {
+            return Liveness.UNKNOWN;
+        }
+        finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /***
+     * Reads the error body of a probe answer
+     *
+     * @param connection            - answered connection
+     * @return                      - the body or an empty string
+     */
+    private static String readBody(HttpURLConnection connection) {
+        try (InputStream in = connection.getErrorStream()) {
+            if (in == null) {
+                return "";
+            }
+            Scanner scanner = new Scanner(in, "UTF-8").useDelimiter("\\A");
+            return scanner.hasNext() ? scanner.next() : "";
+        }
+        catch (IOException e) {
+            return "";
+        }
+    }
+}
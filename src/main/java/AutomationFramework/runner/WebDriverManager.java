@@ -2,7 +2,8 @@
  * Web Driver Manager class
  *
  * This class is responsible for any web driver actions. Initializations, restart, open or close
- * Currently this supports only ChromeDriver
+ * Sessions are created by a pluggable DriverFactory (ChromeDriverFactory by default)
+ * Every thread has its own driver session, so tests can run in parallel (see SessionRegistry)
  *
  * @author Vlad Nuna
  * @date  14/May/2020
@@ -11,63 +12,417 @@
 package AutomationFramework.runner;
 
 import AutomationFramework.exceptions.DriverNotInitializedException;
+import AutomationFramework.exceptions.SessionDeadException;
+import AutomationFramework.interactions.ElementCache;
+import AutomationFramework.interactions.NetworkIdle;
+import AutomationFramework.interactions.Wait;
+import AutomationFramework.utils.AppConfig;
 import AutomationFramework.utils.Logger;
-import AutomationFramework.utils.Utils;
+import AutomationFramework.utils.Metrics;
+import AutomationFramework.utils.RetryPolicy;
+import AutomationFramework.utils.Trace;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import java.util.concurrent.TimeUnit;
 
 public class WebDriverManager {
-    private static final String userDirProperty = System.getProperty("user.dir");
-    private static WebDriver   driver;
+    private static volatile DriverFactory   driverFactory = new ChromeDriverFactory();
+    private static volatile BrowserPool     pool;
+    private static volatile SessionPrewarmer prewarmer;
+    private static final ThreadLocal<NavigationTiming> lastNavigation = new ThreadLocal<>();
+    // retry with a growing backoff until the startup deadline (driver.startTimeoutSeconds) is reached
+    private static final RetryPolicy        START_RETRY = RetryPolicy.builder("driver.start")
+            .maxAttempts(0)
+            .backoff(250, 4000)
+            .deadlineMillis(TimeUnit.SECONDS.toMillis(AppConfig.getLong("driver.startTimeoutSeconds", 60)))
+            .build();
+    private static final SessionWatchdog    watchdog = new SessionWatchdog(AppConfig.getInt("driver.watchdog.probeTimeoutMillis", 3000));
+    private static final Metrics.Counter    SESSIONS_STARTED    = Metrics.counter("sessions.started");
+    private static final Metrics.Counter    SESSION_FAILURES    = Metrics.counter("sessions.startFailures");
+    private static final Metrics.Histogram  SESSION_START       = Metrics.histogram("sessions.start.latency");
+    private static final Metrics.Histogram  NAVIGATION_LATENCY  = Metrics.histogram("navigation.latency");
+
+    static {
+        Metrics.gauge("sessions.active", WebDriverManager::activeSessions);
+        Metrics.gauge("pool.size", () -> pool == null ? 0 : pool.getSize());
+        Metrics.gauge("pool.idle", () -> pool == null ? 0 : pool.getIdleCount());
+    }
 
     /***
-     * Initialize the webDriver (for now we support only chromeDriver
-     * but in the future it is intended to add support for other browsers.
+     * Initialize the webDriver of the current thread using the configured DriverFactory
      */
     public static void startWebDriver() {
-
-        System.setProperty("webdriver.chrome.driver", userDirProperty + "/src/main/resources/chromedriver");
         // If driver is not null, close it before we instantiate a new webDriver
+        WebDriver driver = SessionRegistry.remove();
         if (driver != null) {
-            driver.quit();
+            quit(driver);
         }
 
-        // try to initialize the driver at least twice for now...
-        for (int i = 0; i < 2; i++) {
-            driver = new ChromeDriver(); // to do: Add support for multiple web browsers, Safari, Firefox, Edge etc
+        driver = launchDriver();
+        if (driver != null) {
+            bind(driver);
+        }
+    }
 
-            try {
-                driver.manage().window().maximize();
-                String windowSize = driver.manage().window().getSize().toString();
-                Logger.info("Initialized browser with window size = " + windowSize);
+    /***
+     * Binds a session to the current thread and makes sure the watchdog is looking after it
+     *
+     * @param driver        - session to bind
+     */
+    private static void bind(WebDriver driver) {
+        SessionRegistry.set(driver);
+        ElementCache.invalidate();
+        if (AppConfig.getBoolean("driver.watchdog.enabled", true)) {
+            watchdog.start(AppConfig.getLong("driver.watchdog.intervalMillis", 2000));
+        }
+    }
+
+    /***
+     * Launches a new browser session without binding it to any thread.
+     * If driver.prewarm is enabled the session launched in the background is handed over and the next one is started.
+     *
+     * @return              - the new session or null if it could not be initialized
+     */
+    static WebDriver launchDriver() {
+        if (!AppConfig.getBoolean("driver.prewarm", false)) {
+            return createDriver();
+        }
+        return getPrewarmer().take();
+    }
+
+    /***
+     * Starts launching a browser session in the background, so the next startWebDriver() or pool launch
+     * doesn't wait for Chrome startup. Can be called from a @BeforeSuite to warm the very first session.
+     */
+    public static void prewarm() {
+        getPrewarmer().prewarm();
+    }
+
+    /***
+     * Gets the background session launcher, creating it on first use
+     *
+     * @return              - the session pre-warmer
+     */
+    private static SessionPrewarmer getPrewarmer() {
+        if (prewarmer == null) {
+            synchronized (WebDriverManager.class) {
+                if (prewarmer == null) {
+                    prewarmer = new SessionPrewarmer(WebDriverManager::createDriver, WebDriverManager::reservePoolSlot);
+                }
+            }
+        }
+        return prewarmer;
+    }
+
+    /***
+     * Reserves a browser pool slot for a session launched in the background, which the pool takes over later on
+     *
+     * @return              - frees the slot, null if the pool is full; without a pool nothing is reserved
+     */
+    private static Runnable reservePoolSlot() {
+        BrowserPool current = pool;
+        if (current == null) {
+            return () -> { };
+        }
+        return current.reserveSlot() ? current::freeSlot : null;
+    }
+
+    /***
+     * Creates a new browser session on the calling thread using the driver factory
+     *
+     * @return              - the new session or null if it could not be initialized
+     */
+    private static WebDriver createDriver() {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("createDriver")) {
+            WebDriver driver = START_RETRY.execute(attempt -> {
+                try {
+                    return driverFactory.create();
+                }
+                catch (Exception ex) {
+                    Logger.error("Failed initialized webdriver: retry" + (attempt - 1) + ":" + ex.getMessage());
+                    throw ex;
+                }
+            });
+            Logger.info("Initialized browser session using " + driverFactory.getClass().getSimpleName());
+            SESSIONS_STARTED.increment();
+            SESSION_START.recordSince(start);
+            return driver;
+        }
+        catch (Exception ex) {
+            SESSION_FAILURES.increment();
+            return null;
+        }
+    }
+
+    /***
+     * Replaces the factory used to launch new sessions (another browser, a grid, custom options...).
+     * Has to be called before the first session is started.
+     *
+     * @param factory       - the factory to use from now on
+     */
+    public static void setDriverFactory(DriverFactory factory) {
+        driverFactory = factory;
+    }
+
+    /***
+     * Leases a warm browser session from the pool and binds it to the current thread.
+     * If the thread already holds a pooled session it is returned to the pool first.
+     * Pool size, max reuse, warm up and lease timeout are read from appConfig.properties (pool.*).
+     */
+    public static void leaseWebDriver() {
+        try (Trace.Span span = Trace.span("leaseWebDriver")) {
+            releaseWebDriver();
+            BrowserPool browserPool = getBrowserPool();
+            bind(browserPool.lease(AppConfig.getLong("pool.leaseTimeoutSeconds", 120), TimeUnit.SECONDS));
+        }
+    }
+
+    /***
+     * Returns the session of the current thread to the pool. The session is reset and kept warm for the next test.
+     * A session which was not leased from the pool is quit.
+     */
+    public static void releaseWebDriver() {
+        try (Trace.Span span = Trace.span("releaseWebDriver")) {
+            WebDriver driver = SessionRegistry.remove();
+            if (driver == null) {
                 return;
             }
-            catch (Exception ex) {
-                Logger.error("Failed initialized webdriver: retry" + i + ":" + ex.getMessage());
-                Utils.threadSleep(2000, null);
+
+            if (pool != null && pool.owns(driver)) {
+                if (watchdog.isDead(driver)) {
+                    pool.evict(driver, "session is dead");
+                } else {
+                    pool.release(driver);
+                }
+                watchdog.forget(driver);
+            }
+            else {
+                quit(driver);
+            }
+        }
+    }
+
+    /***
+     * Gets the browser pool, creating and warming it up on first use
+     *
+     * @return              - the browser pool shared by all threads
+     */
+    public static BrowserPool getBrowserPool() {
+        if (pool == null) {
+            synchronized (WebDriverManager.class) {
+                if (pool == null) {
+                    BrowserPool browserPool = new BrowserPool(WebDriverManager::launchDriver,
+                            AppConfig.getInt("pool.maxSize", Runtime.getRuntime().availableProcessors()),
+                            AppConfig.getInt("pool.maxReuse", 20));
+                    browserPool.warmUp(AppConfig.getInt("pool.warmup", 0));
+                    pool = browserPool;
+                }
             }
         }
+        return pool;
     }
 
     /***
-     * Open a specific url page provided as string
+     * Open a specific url page provided as string, using the global page load strategy (driver.pageLoadStrategy)
      * @param url  - url link as string
      */
     public static void openURLPage(String url){
+        openURLPage(url, getPageLoadStrategy(), null);
+    }
+
+    /***
+     * Open a specific url page and wait until the page is ready according to the given load strategy
+     * and readiness condition.
+     *
+     * The browser session is launched with the global strategy, so the per call strategy can only wait for more:
+     * with the global strategy set to "none" or "eager", NORMAL waits for document.readyState "complete",
+     * EAGER for "interactive" and NONE returns as soon as the navigation was committed.
+     * The readiness condition (e.g. visibility of the main element) is what the test really needs and
+     * usually is met long before every ad and analytics script finished loading.
+     *
+     * @param url           - url link as string
+     * @param strategy      - how much of the page load to wait for
+     * @param readiness     - optional condition to wait for after navigation, null to skip
+     * @throws WebDriverException if the page could not be opened or didn't get ready in time (TimeoutException)
+     */
+    public static void openURLPage(String url, PageLoadStrategy strategy, ExpectedCondition<?> readiness){
+        try (Trace.Span span = Trace.span("openURLPage", url)) {
+            checkSessionAlive();
+            ElementCache.invalidate();
+            long start = System.currentTimeMillis();
+            try {
+                WebDriver driver = getWebDriver();
+                driver.get(url);
+                if (Wait.NETWORK_READINESS) {
+                    installNetworkCounter();
+                }
+                waitForReadyState(strategy);
+                if (readiness != null) {
+                    Wait.until("readiness " + url, AppConfig.getLong("driver.navigationTimeoutSeconds", 30), readiness);
+                }
+            }catch (SessionDeadException ex){
+                throw ex;
+            }catch (Exception ex){
+                Logger.error("Failed to open the following url: "+url + ": " + ex.getMessage());
+                if (!isSessionAlive()) {
+                    throw new SessionDeadException("Browser session died while opening " + url);
+                }
+                // the page is not usable, fail here rather than on the first lookup of the test
+                if (ex instanceof RuntimeException) {
+                    throw (RuntimeException) ex;
+                }
+                throw new WebDriverException("Failed to open " + url, ex);
+            }
+
+            NAVIGATION_LATENCY.record(System.currentTimeMillis() - start);
+            if (AppConfig.getBoolean("driver.navigationTiming", true)) {
+                NavigationTiming timing = NavigationTiming.capture(getWebDriver(), url, System.currentTimeMillis() - start);
+                lastNavigation.set(timing);
+                if (timing != null) {
+                    Logger.debug(() -> "Navigation timing " + timing);
+                }
+            }
+        }
+    }
+
+    /***
+     * Installs the request counter of NetworkIdle in the new document, so its requests are counted as early as possible.
+     * Not fatal: the next readiness wait installs it too.
+     */
+    private static void installNetworkCounter() {
         try {
-            driver.get(url);
-        }catch (Exception ex){
-            Logger.error("Failed to open the following url: "+url);
+            NetworkIdle.install();
+        }
+        catch (WebDriverException ex) {
+            Logger.debug(() -> "Could not install the network counter: " + ex.getMessage());
+        }
+    }
+
+    /***
+     * Waits for the document ready state matching the requested strategy, if the session's own strategy
+     * didn't already wait for it
+     *
+     * @param strategy      - requested page load strategy
+     */
+    private static void waitForReadyState(PageLoadStrategy strategy) {
+        PageLoadStrategy sessionStrategy = getPageLoadStrategy();
+        if (strategy == null || strategy == PageLoadStrategy.NONE || sessionStrategy == PageLoadStrategy.NORMAL
+                || strategy == sessionStrategy) {
+            return;
+        }
+
+        String expected = strategy == PageLoadStrategy.NORMAL ? "'complete'" : "'interactive' || s == 'complete'";
+        Wait.until("ready state " + strategy, AppConfig.getLong("driver.navigationTimeoutSeconds", 30), driver -> (Boolean) ((JavascriptExecutor) driver)
+                .executeScript("var s = document.readyState; return s == " + expected + ";"));
+    }
+
+    /***
+     * @return              - the global page load strategy the sessions are launched with (driver.pageLoadStrategy)
+     */
+    public static PageLoadStrategy getPageLoadStrategy() {
+        PageLoadStrategy strategy = PageLoadStrategy.fromString(AppConfig.getString("driver.pageLoadStrategy", "normal").toLowerCase());
+        return strategy == null ? PageLoadStrategy.NORMAL : strategy;
+    }
+
+    /***
+     * @return              - Navigation Timing breakdown of the last openURLPage of the current thread, null if not recorded
+     */
+    public static NavigationTiming getLastNavigationTiming() {
+        return lastNavigation.get();
+    }
+
+    /***
+     * Fails fast if the session of the current thread was marked dead by the watchdog.
+     * Used by the waits so a crashed browser doesn't burn every timeout before the test fails.
+     *
+     * @throws SessionDeadException if the session is dead
+     */
+    public static void checkSessionAlive() throws SessionDeadException {
+        if (watchdog.isDead(SessionRegistry.get())) {
+            throw new SessionDeadException("Browser session is dead, see the watchdog log for details");
+        }
+    }
+
+    /***
+     * Probes the session of the current thread right away (one http call to the driver server, not a
+     * command on the session). A session found dead is marked so every pending wait fails fast.
+     *
+     * @return              - false if the session is known to be dead, true otherwise
+     */
+    public static boolean isSessionAlive() {
+        WebDriver driver = SessionRegistry.get();
+        if (driver == null || watchdog.isDead(driver)) {
+            return false;
         }
+
+        if (watchdog.probe(driver) == SessionWatchdog.Liveness.DEAD) {
+            watchdog.markDead(driver, "liveness probe failed");
+            return false;
+        }
+        return true;
     }
 
     /***
-     * Close webdriver instance.
+     * Close the webdriver instance of the current thread.
      *
      * @throws Exception
      */
     public static void stop() throws Exception {
-        driver.quit();
+        WebDriver driver = SessionRegistry.remove();
+        watchdog.forget(driver);
+        if (driver != null) {
+            if (pool != null && pool.owns(driver)) {
+                pool.evict(driver, "stopped");
+                return;
+            }
+            driver.quit();
+        }
+    }
+
+    /***
+     * Close every webdriver instance started by any thread. Meant to be used at the end of the suite.
+     */
+    public static void stopAll() {
+        for (WebDriver driver : SessionRegistry.removeAll()) {
+            if (pool == null || !pool.owns(driver)) {
+                quit(driver);
+            }
+        }
+
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        if (prewarmer != null) {
+            prewarmer.shutdown();
+            prewarmer = null;
+        }
+        watchdog.stop();
+        driverFactory.shutdown();
+        Logger.info(NavigationTiming.summary());
+        Logger.info(RetryPolicy.summary());
+        Logger.info(Wait.latencySummary());
+        Logger.info(CommandStats.summary());
+    }
+
+    /***
+     * Quits a driver and logs instead of failing if it is already gone
+     *
+     * @param driver        - driver to quit
+     */
+    private static void quit(WebDriver driver) {
+        watchdog.forget(driver);
+        try {
+            driver.quit();
+        }
+        catch (Exception e) {
+            Logger.warn("Driver could not be closed: " + e.getMessage());
+        }
     }
 
     /**
@@ -76,8 +431,20 @@ public class WebDriverManager {
      * @param quit parameter used if we want to close or not the driver
      */
     public static void resetDriver(boolean quit) {
-        try {
+        WebDriver driver = SessionRegistry.remove();
+        watchdog.forget(driver);
+        if (pool != null && pool.owns(driver)) {
+            // a pooled session is never just forgotten, otherwise its slot would be lost
             if (quit) {
+                pool.evict(driver, "reset");
+            } else {
+                pool.release(driver);
+            }
+            return;
+        }
+
+        try {
+            if (quit && driver != null) {
                 driver.quit();
                 Logger.info("WebDriver quit successful");
             }
@@ -86,28 +453,33 @@ public class WebDriverManager {
             Logger.warn("Driver could not be reset. See debug log for details");
             Logger.debug(e.toString());
         }
-        finally {
-            driver = null;
-        }
     }
 
     /**
      * Checks if the web driver exists
      *
-     * @return true if a valid web driver is active
+     * @return true if a valid web driver is active for the current thread
      */
     public static Boolean driverInitialized() {
-        return driver != null;
+        return SessionRegistry.get() != null;
+    }
+
+    /**
+     * @return number of web driver sessions currently active across all threads
+     */
+    public static int activeSessions() {
+        return SessionRegistry.size();
     }
 
 
     /**
-     * Gets the current webDriver instance or tries to create one
+     * Gets the webDriver instance of the current thread
      *
      * @return current webDriver instance
      * @throws DriverNotInitializedException if driver is null
      */
     public static WebDriver getWebDriver() throws DriverNotInitializedException {
+        WebDriver driver = SessionRegistry.get();
         if (driver == null) {
             throw new DriverNotInitializedException("Driver is not initialized!");
         }
@@ -120,6 +492,7 @@ public class WebDriverManager {
      * @return the current url the browser is on
      */
     public static String getCurrentUrl() {
-        return driver.getCurrentUrl();
+        checkSessionAlive();
+        return getWebDriver().getCurrentUrl();
     }
 }
@@ -0,0 +1,89 @@
+package AutomationFramework.utils;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Class responsible for reading the framework settings from appConfig.properties.
+ * A JVM system property with the same key (-Dkey=value) always wins over the file value.
+ */
+public abstract class AppConfig {
+    private static final String     CONFIG_FILE = "appConfig.properties";
+    private static final Properties properties  = load();
+
+    /***
+     * Loads the properties file from the classpath once
+     *
+     * @return              - loaded properties, empty if the file is missing
+     */
+    private static Properties load() {
+        Properties props = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) {
+                props.load(in);
+            }
+        }
+        catch (Exception e) {
+            Logger.warn("Could not read " + CONFIG_FILE + ": " + e.getMessage());
+        }
+        return props;
+    }
+
+    /***
+     * Gets a setting as string
+     *
+     * @param key           - setting name
+     * @param defaultValue  - value returned if the setting is not defined
+     * @return              - the setting value
+     */
+    public static String getString(String key, String defaultValue) {
+        // properties is still null if Logger is initialized by a warning of load() and reads its own settings
+        String value = System.getProperty(key, properties == null ? null : properties.getProperty(key));
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /***
+     * Gets a setting as int
+     *
+     * @param key           - setting name
+     * @param defaultValue  - value returned if the setting is not defined or is not a number
+     * @return              - the setting value
+     */
+    public static int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /***
+     * Gets a setting as long
+     *
+     * @param key           - setting name
+     * @param defaultValue  - value returned if the setting is not defined or is not a number
+     * @return              - the setting value
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            Logger.warn(String.format("Setting %s=%s is not a number, using %d", key, value, defaultValue));
+            return defaultValue;
+        }
+    }
+
+    /***
+     * Gets a setting as boolean
+     *
+     * @param key           - setting name
+     * @param defaultValue  - value returned if the setting is not defined
+     * @return              - the setting value
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
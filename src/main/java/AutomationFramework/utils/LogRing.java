@@ -0,0 +1,78 @@
+package AutomationFramework.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/***
+ * Bounded ring buffer handing log entries from the test threads to the Logger writer thread.
+ *
+ * Producers claim a slot with a compare-and-set on the head sequence and publish the entry in it, they never lock
+ * and never wait: when the buffer is full the entry is refused and the caller decides what to do with it.
+ * There is a single consumer (drain is synchronized); it empties a slot before moving the tail past it,
+ * so a producer can only reuse a slot once its previous entry was taken.
+ */
+class LogRing<E> {
+    private final AtomicReferenceArray<E>   slots;
+    private final int                       mask;
+    private final AtomicLong                head = new AtomicLong();
+    private volatile long                   tail;
+
+    /***
+     * @param capacity          - number of slots, rounded up to a power of two
+     */
+    LogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask  = size - 1;
+    }
+
+    /***
+     * Adds an entry without blocking
+     *
+     * @param entry             - entry to hand over
+     * @return                  - false if the buffer is full
+     */
+    boolean offer(E entry) {
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail > mask) {
+                return false;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+        slots.set((int) (seq & mask), entry);
+        return true;
+    }
+
+    /***
+     * Passes every published entry to the consumer, in order. Stops at a slot claimed but not published yet.
+     *
+     * @param consumer          - receives the entries
+     * @return                  - number of entries drained
+     */
+    synchronized int drain(Consumer<E> consumer) {
+        int drained = 0;
+        long current = tail;
+        while (true) {
+            int index = (int) (current & mask);
+            E entry = slots.get(index);
+            if (entry == null) {
+                break;
+            }
+            slots.set(index, null);
+            current++;
+            tail = current;
+            consumer.accept(entry);
+            drained++;
+        }
+        return drained;
+    }
+
+    /***
+     * @return                  - true if no entry was claimed since the last drain
+     */
+    boolean isEmpty() {
+        return head.get() == tail;
+    }
+}
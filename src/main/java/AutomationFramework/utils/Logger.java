@@ -11,8 +11,23 @@
 package AutomationFramework.utils;
 
 
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
 /**
  * Class responsible for logs across the framework.
+ *
+ * Messages below log.level are dropped before they are built: pass a Supplier (Logger.debug(() -> "..." + el))
+ * for messages that cost something to format. With log.async the test thread only hands the message to a bounded
+ * lock-free ring buffer (LogRing); a background thread formats and prints them in batches, so parallel sessions
+ * don't queue on the System.out lock. If the buffer is full the message is dropped and counted, errors are
+ * printed right away instead.
+ *
+ * Between startTest and endTest the last log.tail.size messages of the thread, whatever their level, are kept in
+ * memory and printed only if the test failed. A Supplier below log.level is kept as is and only built then.
+ * The writer thread is parked while the buffer is empty and woken by the next message.
  */
 public abstract class Logger {
 
@@ -23,12 +38,88 @@ public abstract class Logger {
     public static final String ANSI_BLUE        = "\u001B[34m";
     public static final String ANSI_DARK_GREY   = "\u001B[30m";
 
+    /***
+     * Log levels, from the most verbose
+     */
+    public enum Level {
+        DEBUG(ANSI_BLUE),
+        INFO(ANSI_DARK_GREY),
+        SUCCESS(ANSI_GREEN),
+        WARN(ANSI_YELLOW),
+        ERROR(ANSI_RED),
+        OFF(ANSI_RESET);
+
+        private final String color;
+
+        Level(String color) {
+            this.color = color;
+        }
+    }
+
+    /***
+     * A message waiting in the ring buffer or in a test tail
+     */
+    private static class Entry {
+        final Level     level;
+        // a String, or a Supplier<String> of a message below log.level, built only if the tail is printed
+        final Object    message;
+
+        Entry(Level level, Object message) {
+            this.level   = level;
+            this.message = message;
+        }
+
+        String text() {
+            return message instanceof Supplier ? String.valueOf(((Supplier<?>) message).get()) : String.valueOf(message);
+        }
+    }
+
+    /***
+     * Last messages of the current test of a thread
+     */
+    private static class Tail {
+        final String            test;
+        final ArrayDeque<Entry> lines = new ArrayDeque<>();
+
+        Tail(String test) {
+            this.test = test;
+        }
+    }
+
+    // AppConfig logs through this class, so these can still be null while AppConfig loads: see enabled() and log()
+    private static final Level              THRESHOLD   = parseLevel(AppConfig.getString("log.level", "DEBUG"));
+    private static final int                TAIL_SIZE   = AppConfig.getInt("log.tail.size", 200);
+    private static final LogRing<Entry>     RING        = AppConfig.getBoolean("log.async", true)
+            ? new LogRing<>(AppConfig.getInt("log.bufferSize", 8192)) : null;
+    private static final LongAdder          dropped     = new LongAdder();
+    private static final ThreadLocal<Tail>  tail        = new ThreadLocal<>();
+    private static final StringBuilder      batch       = new StringBuilder();
+    private static final Thread             WRITER      = RING == null ? null : new Thread(Logger::writeLoop, "af-logger");
+    // set by the writer before it parks, producers only unpark it then
+    private static volatile boolean         writerIdle;
+
+    static {
+        if (WRITER != null) {
+            WRITER.setDaemon(true);
+            WRITER.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(Logger::flush, "af-logger-flush"));
+        }
+    }
+
     /***
      * Log a info message (print line dark grey), requires a message
      * @param message The message that needs to be logged
      */
     public static void info(String message){
-        System.out.println(ANSI_DARK_GREY + " : " + message + ANSI_RESET);
+        log(Level.INFO, message);
+    }
+
+    /***
+     * Log a info message built only if it is logged
+     * @param message Builds the message that needs to be logged
+     */
+    public static void info(Supplier<String> message){
+        log(Level.INFO, message);
     }
 
     /***
@@ -36,7 +127,7 @@ public abstract class Logger {
      * @param message The message that needs to be logged
      */
     public static void success(String message){
-        System.out.println(ANSI_GREEN + " : " + message + ANSI_RESET);
+        log(Level.SUCCESS, message);
     }
 
     /***
@@ -44,7 +135,7 @@ public abstract class Logger {
      * @param message The message that needs to be logged
      */
     public static void warn(String message){
-        System.out.println(ANSI_YELLOW + " : " + message + ANSI_RESET);
+        log(Level.WARN, message);
     }
 
     /***
@@ -52,7 +143,7 @@ public abstract class Logger {
      * @param message The message that needs to be logged
      */
     public static void error(String message){
-        System.out.println(ANSI_RED + " : " + message + ANSI_RESET);
+        log(Level.ERROR, message);
     }
 
     /***
@@ -71,6 +162,151 @@ public abstract class Logger {
      * @param message The message that needs to be logged
      */
     public static void debug(String message){
-        System.out.println(ANSI_BLUE + " : " + message + ANSI_RESET);
+        log(Level.DEBUG, message);
+    }
+
+    /***
+     * Log a debug message built only if it is logged
+     * @param message Builds the message that needs to be logged
+     */
+    public static void debug(Supplier<String> message){
+        log(Level.DEBUG, message);
+    }
+
+    /***
+     * @param level         - log level
+     * @return              - true if messages of this level are printed; below it a Supplier is only kept, unbuilt,
+     *                        in the test tail
+     */
+    public static boolean isEnabled(Level level) {
+        return enabled(level);
+    }
+
+    private static Level parseLevel(String level) {
+        try {
+            return Level.valueOf(level.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e) {
+            return Level.DEBUG;
+        }
+    }
+
+    private static boolean enabled(Level level) {
+        return THRESHOLD == null || level.ordinal() >= THRESHOLD.ordinal();
+    }
+
+    private static void log(Level level, Supplier<String> message) {
+        if (enabled(level)) {
+            log(level, message.get());
+        }
+        else {
+            keep(new Entry(level, message));
+        }
+    }
+
+    private static void log(Level level, String message) {
+        Entry entry = new Entry(level, message);
+        keep(entry);
+        if (!enabled(level)) {
+            return;
+        }
+
+        if (RING == null || !RING.offer(entry)) {
+            if (RING != null && level != Level.ERROR) {
+                dropped.increment();
+                return;
+            }
+            System.out.println(format(level, message));
+        }
+        else if (writerIdle) {
+            LockSupport.unpark(WRITER);
+        }
+    }
+
+    /***
+     * Adds a message to the tail of the current test, if one is kept
+     */
+    private static void keep(Entry entry) {
+        Tail current = TAIL_SIZE > 0 ? tail.get() : null;
+        if (current != null) {
+            if (current.lines.size() >= TAIL_SIZE) {
+                current.lines.removeFirst();
+            }
+            current.lines.addLast(entry);
+        }
+    }
+
+    private static String format(Level level, String message) {
+        return level.color + " : " + message + ANSI_RESET;
+    }
+
+    /***
+     * Starts keeping the messages of the current thread for the test, see endTest
+     *
+     * @param test          - test name
+     */
+    public static void startTest(String test) {
+        if (TAIL_SIZE > 0) {
+            tail.set(new Tail(test));
+        }
+    }
+
+    /***
+     * Stops keeping the messages of the current thread, printing them if the test failed
+     *
+     * @param failed        - true if the test failed
+     */
+    public static void endTest(boolean failed) {
+        Tail current = tail.get();
+        tail.remove();
+        if (!failed || current == null || current.lines.isEmpty()) {
+            return;
+        }
+
+        flush();
+        StringBuilder dump = new StringBuilder(ANSI_RED)
+                .append(" : Last ").append(current.lines.size()).append(" log lines of failed test ").append(current.test);
+        current.lines.forEach(line -> dump.append(System.lineSeparator()).append("   ").append(line.level).append(' ').append(line.text()));
+        System.out.println(dump.append(ANSI_RESET));
+    }
+
+    /***
+     * Prints every message still waiting in the ring buffer
+     */
+    public static void flush() {
+        if (RING == null) {
+            return;
+        }
+
+        synchronized (batch) {
+            batch.setLength(0);
+            RING.drain(entry -> batch.append(format(entry.level, entry.text())).append(System.lineSeparator()));
+            if (batch.length() > 0) {
+                System.out.print(batch);
+                System.out.flush();
+            }
+        }
+    }
+
+    /***
+     * @return              - number of messages dropped because the ring buffer was full
+     */
+    public static long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /***
+     * Writer thread: prints the buffered messages in batches, parked while there is nothing to print
+     */
+    private static void writeLoop() {
+        while (true) {
+            flush();
+            // idle is published before the emptiness check: a message offered after it unparks the writer
+            writerIdle = true;
+            if (RING.isEmpty()) {
+                LockSupport.park();
+            }
+            writerIdle = false;
+        }
     }
 }
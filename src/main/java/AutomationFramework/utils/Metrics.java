@@ -0,0 +1,368 @@
+package AutomationFramework.utils;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/***
+ * Live numbers of the run: counters, gauges and latency histograms registered by name and published as MBeans
+ * (domain AutomationFramework), so a long suite can be watched in JConsole or VisualVM while it runs.
+ *
+ *     private static final Metrics.Histogram LATENCY = Metrics.histogram("wait.latency");
+ *     LATENCY.record(millis);
+ *
+ * Recording never locks: counters and histogram buckets are LongAdders. Besides the totals since the start, every
+ * metric keeps the last full window (metrics.windowSeconds) so rates and percentiles show how the run is doing now,
+ * not on average since it started.
+ *
+ * Settings (appConfig.properties):
+ *   metrics.jmx.enabled    - register the metrics as MBeans (default: true)
+ *   metrics.windowSeconds  - length of the window of the recent rates and percentiles (default: 60)
+ */
+public abstract class Metrics {
+    private static final String     DOMAIN          = "AutomationFramework";
+    private static final boolean    JMX             = AppConfig.getBoolean("metrics.jmx.enabled", true);
+    private static final long       WINDOW_NANOS    = TimeUnit.SECONDS.toNanos(Math.max(1, AppConfig.getLong("metrics.windowSeconds", 60)));
+    // upper bounds of the histogram buckets in milliseconds, the last bucket takes everything above
+    private static final long[]     BOUNDS          = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+    private static final Map<String, Object> metrics = new ConcurrentHashMap<>();
+
+    /***
+     * JMX view of a Counter
+     */
+    public interface CounterMBean {
+        long getCount();
+        double getRatePerMinute();
+    }
+
+    /***
+     * JMX view of a Gauge
+     */
+    public interface GaugeMBean {
+        long getValue();
+    }
+
+    /***
+     * JMX view of a Histogram
+     */
+    public interface HistogramMBean {
+        long getCount();
+        double getMeanMillis();
+        long getMaxMillis();
+        long getP50Millis();
+        long getP90Millis();
+        long getP99Millis();
+        long getRecentCount();
+        long getRecentP50Millis();
+        long getRecentP99Millis();
+    }
+
+    /***
+     * Cells of one time window
+     */
+    private static class Slot {
+        final long          start;
+        final LongAdder[]   cells;
+
+        Slot(int size, long start) {
+            this.start = start;
+            this.cells = adders(size);
+        }
+    }
+
+    /***
+     * Current window, where new values go, and the last full one, which is read. Rotated by whoever comes first
+     * after the window ended; a value added to a window just being replaced lands in the previous one.
+     */
+    private static class Windows {
+        private final int                   size;
+        private final AtomicReference<Slot> current;
+        private volatile Slot               previous;
+
+        Windows(int size) {
+            this.size     = size;
+            this.current  = new AtomicReference<>(new Slot(size, System.nanoTime()));
+            this.previous = new Slot(size, System.nanoTime() - WINDOW_NANOS);
+        }
+
+        Slot current() {
+            long now = System.nanoTime();
+            Slot slot = current.get();
+            if (now - slot.start < WINDOW_NANOS) {
+                return slot;
+            }
+            Slot next = new Slot(size, now);
+            if (current.compareAndSet(slot, next)) {
+                // nothing was recorded during the windows skipped in between
+                previous = now - slot.start < 2 * WINDOW_NANOS ? slot : new Slot(size, now - WINDOW_NANOS);
+                return next;
+            }
+            return current.get();
+        }
+
+        Slot last() {
+            current();
+            return previous;
+        }
+    }
+
+    /***
+     * Number of events, e.g. retries
+     */
+    public static class Counter implements CounterMBean {
+        private final LongAdder total   = new LongAdder();
+        private final Windows   windows = new Windows(1);
+
+        private Counter() {
+        }
+
+        /***
+         * Counts one event
+         */
+        public void increment() {
+            add(1);
+        }
+
+        /***
+         * @param count         - number of events to count
+         */
+        public void add(long count) {
+            total.add(count);
+            windows.current().cells[0].add(count);
+        }
+
+        @Override
+        public long getCount() {
+            return total.sum();
+        }
+
+        /***
+         * @return              - events of the last full window, per minute
+         */
+        @Override
+        public double getRatePerMinute() {
+            return windows.last().cells[0].sum() * (double) TimeUnit.MINUTES.toNanos(1) / WINDOW_NANOS;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d (%.1f/min)", getCount(), getRatePerMinute());
+        }
+    }
+
+    /***
+     * Value read when it's asked for, e.g. the number of active sessions
+     */
+    public static class Gauge implements GaugeMBean {
+        private final LongSupplier value;
+
+        private Gauge(LongSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public long getValue() {
+            return value.getAsLong();
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(getValue());
+        }
+    }
+
+    /***
+     * Latencies counted in fixed buckets (1 ms to 60 s); percentiles are the upper bound of the bucket they fall in
+     */
+    public static class Histogram implements HistogramMBean {
+        private final LongAdder[]       buckets = adders(BOUNDS.length + 1);
+        private final LongAdder         sum     = new LongAdder();
+        private final LongAccumulator   max     = new LongAccumulator(Math::max, 0);
+        private final Windows           windows = new Windows(BOUNDS.length + 1);
+
+        private Histogram() {
+        }
+
+        /***
+         * @param millis        - latency to add
+         */
+        public void record(long millis) {
+            int index = Arrays.binarySearch(BOUNDS, millis);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            buckets[index].increment();
+            windows.current().cells[index].increment();
+            sum.add(millis);
+            max.accumulate(millis);
+        }
+
+        /***
+         * @param startNanos    - System.nanoTime() at the start of the operation
+         */
+        public void recordSince(long startNanos) {
+            record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+
+        @Override
+        public long getCount() {
+            return count(buckets);
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) sum.sum() / count;
+        }
+
+        @Override
+        public long getMaxMillis() {
+            return max.get();
+        }
+
+        @Override
+        public long getP50Millis() {
+            return percentile(buckets, 50);
+        }
+
+        @Override
+        public long getP90Millis() {
+            return percentile(buckets, 90);
+        }
+
+        @Override
+        public long getP99Millis() {
+            return percentile(buckets, 99);
+        }
+
+        @Override
+        public long getRecentCount() {
+            return count(windows.last().cells);
+        }
+
+        @Override
+        public long getRecentP50Millis() {
+            return percentile(windows.last().cells, 50);
+        }
+
+        @Override
+        public long getRecentP99Millis() {
+            return percentile(windows.last().cells, 99);
+        }
+
+        private long percentile(LongAdder[] cells, double percentile) {
+            long[] counts = new long[cells.length];
+            long total = 0;
+            for (int i = 0; i < cells.length; i++) {
+                counts[i] = cells[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < BOUNDS.length ? BOUNDS[i] : getMaxMillis();
+                }
+            }
+            return getMaxMillis();
+        }
+
+        private static long count(LongAdder[] cells) {
+            long count = 0;
+            for (LongAdder cell : cells) {
+                count += cell.sum();
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d (p50 %d ms, p99 %d ms, max %d ms)", getCount(), getP50Millis(), getP99Millis(), getMaxMillis());
+        }
+    }
+
+    /***
+     * Gets a counter, registering it on first use
+     *
+     * @param name              - metric name, e.g. "retry.attempts"
+     * @return                  - the counter
+     */
+    public static Counter counter(String name) {
+        return register(name, "Counter", Counter.class, new Counter(), CounterMBean.class);
+    }
+
+    /***
+     * Gets a latency histogram, registering it on first use
+     *
+     * @param name              - metric name, e.g. "wait.latency"
+     * @return                  - the histogram
+     */
+    public static Histogram histogram(String name) {
+        return register(name, "Histogram", Histogram.class, new Histogram(), HistogramMBean.class);
+    }
+
+    /***
+     * Registers a gauge; a name registered twice keeps its first supplier
+     *
+     * @param name              - metric name, e.g. "sessions.active"
+     * @param value             - reads the current value
+     * @return                  - the gauge
+     */
+    public static Gauge gauge(String name, LongSupplier value) {
+        return register(name, "Gauge", Gauge.class, new Gauge(value), GaugeMBean.class);
+    }
+
+    private static <M, I> M register(String name, String type, Class<M> metricClass, M metric, Class<I> mbeanInterface) {
+        Object existing = metrics.putIfAbsent(name, metric);
+        if (existing != null) {
+            if (!metricClass.isInstance(existing)) {
+                throw new IllegalArgumentException("Metric " + name + " is already registered as a " + existing.getClass().getSimpleName());
+            }
+            return metricClass.cast(existing);
+        }
+
+        if (JMX) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(new StandardMBean(mbeanInterface.cast(metric), mbeanInterface),
+                        new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name)));
+            }
+            catch (Exception e) {
+                Logger.warn("Could not publish metric " + name + " over JMX: " + e.getMessage());
+            }
+        }
+        return metric;
+    }
+
+    /***
+     * @return                  - every metric and its current value, one line per metric, sorted by name
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder("Metrics:");
+        new TreeMap<>(metrics).forEach((name, metric) -> summary.append(String.format("%n  %s: %s", name, metric)));
+        return summary.toString();
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,303 @@
+package AutomationFramework.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/***
+ * Retry rules of a flaky operation: max attempts, exponential backoff with jitter, total deadline,
+ * exceptions worth retrying and an optional result check.
+ *
+ *     private static final RetryPolicy STALE = RetryPolicy.builder("click.stale")
+ *             .maxAttempts(2)
+ *             .retryOn(StaleElementReferenceException.class)
+ *             .build();
+ *
+ *     STALE.execute(attempt -> ...);
+ *
+ * Attempts and deadline can be overridden in appConfig.properties with retry.&lt;name&gt;.maxAttempts and
+ * retry.&lt;name&gt;.deadlineMillis. Every policy counts its calls, retries, give-ups and the time spent in failed
+ * attempts and backoff, see summary().
+ */
+public final class RetryPolicy {
+    private static final Map<String, RetryPolicy> policies = new ConcurrentHashMap<>();
+    private static final Metrics.Counter RETRIES   = Metrics.counter("retry.attempts");
+    private static final Metrics.Counter GIVE_UPS  = Metrics.counter("retry.giveUps");
+
+    /***
+     * One attempt of the operation
+     */
+    public interface Attempt<T> {
+        /***
+         * @param attempt       - attempt number, starting at 1
+         * @return              - the result of the operation
+         * @throws Exception    - retried if it's one of the retryOn exceptions, thrown to the caller otherwise
+         */
+        T run(int attempt) throws Exception;
+    }
+
+    private final String                                name;
+    private final int                                   maxAttempts;
+    private final long                                  initialBackoffMillis;
+    private final long                                  maxBackoffMillis;
+    private final long                                  deadlineMillis;
+    private final List<Class<? extends Throwable>>      retryOn;
+    private final BooleanSupplier                       giveUpWhen;
+
+    private final LongAdder calls       = new LongAdder();
+    private final LongAdder retries     = new LongAdder();
+    private final LongAdder giveUps     = new LongAdder();
+    private final LongAdder wastedMillis = new LongAdder();
+
+    private RetryPolicy(Builder builder) {
+        this.name                 = builder.name;
+        this.maxAttempts          = AppConfig.getInt("retry." + builder.name + ".maxAttempts", builder.maxAttempts);
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxBackoffMillis     = builder.maxBackoffMillis;
+        this.deadlineMillis       = AppConfig.getLong("retry." + builder.name + ".deadlineMillis", builder.deadlineMillis);
+        this.retryOn              = builder.retryOn;
+        this.giveUpWhen           = builder.giveUpWhen;
+    }
+
+    /***
+     * Starts building a policy
+     *
+     * @param name              - policy name, used for the counters and the configuration keys
+     * @return                  - the builder
+     */
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /***
+     * Runs the operation until it succeeds, failing with the last exception when the policy gives up
+     *
+     * @param attempt           - the operation
+     * @return                  - the result of the successful attempt
+     * @throws Exception        - the last exception if every attempt failed, or any exception not retried
+     */
+    public <T> T execute(Attempt<T> attempt) throws Exception {
+        return execute(attempt, result -> true);
+    }
+
+    /***
+     * Runs the operation until it succeeds and its result passes the check.
+     * If the result still fails the check when the policy gives up, the last result is returned.
+     *
+     * @param attempt           - the operation
+     * @param success           - result check, a result failing it is retried like an exception
+     * @return                  - the result of the last attempt
+     * @throws Exception        - the last exception if every attempt failed, or any exception not retried
+     */
+    public <T> T execute(Attempt<T> attempt, Predicate<? super T> success) throws Exception {
+        calls.increment();
+        long start    = System.nanoTime();
+        long deadline = deadlineMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(deadlineMillis) : Long.MAX_VALUE;
+        long backoff  = initialBackoffMillis;
+
+        for (int i = 1; ; i++) {
+            long attemptStart = System.nanoTime();
+            T result = null;
+            Exception failure = null;
+            try {
+                result = attempt.run(i);
+                if (success.test(result)) {
+                    return result;
+                }
+            }
+            catch (Exception e) {
+                if (!isRetried(e)) {
+                    throw e;
+                }
+                failure = e;
+            }
+            wastedMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attemptStart));
+
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            boolean exhausted = (maxAttempts > 0 && i >= maxAttempts) || remainingMillis <= 0
+                    || (giveUpWhen != null && giveUpWhen.getAsBoolean());
+            if (exhausted) {
+                giveUps.increment();
+                GIVE_UPS.increment();
+                int attempts = i;
+                Logger.debug(() -> String.format("Retry policy '%s' gave up after %d attempt(s)", name, attempts));
+                if (failure != null) {
+                    throw failure;
+                }
+                return result;
+            }
+
+            retries.increment();
+            RETRIES.increment();
+            if (backoff > 0) {
+                // equal jitter: half the backoff plus a random half, so parallel sessions don't retry in lockstep
+                long sleep = Math.min(remainingMillis, backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                wastedMillis.add(sleep);
+                if (Utils.threadSleep(sleep, null)) {
+                    Thread.currentThread().interrupt();
+                    giveUps.increment();
+                    GIVE_UPS.increment();
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return result;
+                }
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    private boolean isRetried(Exception e) {
+        for (Class<? extends Throwable> type : retryOn) {
+            if (type.isInstance(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /***
+     * Copy of this policy with another attempt limit, counted as "name[attempts]"
+     *
+     * @param attempts          - max attempts, 0 for no limit
+     * @return                  - the new policy
+     */
+    public RetryPolicy withMaxAttempts(int attempts) {
+        if (attempts == maxAttempts) {
+            return this;
+        }
+        Builder builder = new Builder(name + "[" + attempts + "]");
+        builder.maxAttempts          = attempts;
+        builder.initialBackoffMillis = initialBackoffMillis;
+        builder.maxBackoffMillis     = maxBackoffMillis;
+        builder.deadlineMillis       = deadlineMillis;
+        builder.retryOn              = retryOn;
+        builder.giveUpWhen           = giveUpWhen;
+        return builder.build();
+    }
+
+    /***
+     * @return                  - policy name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /***
+     * @return                  - number of operations run through this policy
+     */
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /***
+     * @return                  - number of attempts after the first one
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /***
+     * @return                  - number of operations which still failed when the policy gave up
+     */
+    public long getGiveUpCount() {
+        return giveUps.sum();
+    }
+
+    /***
+     * @return                  - time spent in failed attempts and backoff sleeps
+     */
+    public long getWastedMillis() {
+        return wastedMillis.sum();
+    }
+
+    /***
+     * @return                  - counters of every policy built so far, one line per policy
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder("Retries:");
+        policies.values().stream()
+                .sorted((a, b) -> Long.compare(b.getWastedMillis(), a.getWastedMillis()))
+                .forEach(p -> summary.append(String.format("%n  %s: %d calls, %d retries, %d gave up, %d ms wasted",
+                        p.name, p.getCallCount(), p.getRetryCount(), p.getGiveUpCount(), p.getWastedMillis())));
+        return summary.toString();
+    }
+
+    /***
+     * Builder of a RetryPolicy; by default 3 attempts, no backoff, no deadline, retrying on any exception
+     */
+    public static class Builder {
+        private final String                            name;
+        private int                                     maxAttempts          = 3;
+        private long                                    initialBackoffMillis = 0;
+        private long                                    maxBackoffMillis     = 0;
+        private long                                    deadlineMillis       = 0;
+        private List<Class<? extends Throwable>>        retryOn              = new ArrayList<>(Arrays.asList(Exception.class));
+        private BooleanSupplier                         giveUpWhen;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        /***
+         * @param attempts      - max attempts, 0 for no limit (then a deadline is needed)
+         */
+        public Builder maxAttempts(int attempts) {
+            this.maxAttempts = attempts;
+            return this;
+        }
+
+        /***
+         * @param initialMillis - sleep before the second attempt, doubled before each next one
+         * @param maxMillis     - upper bound of the sleep
+         */
+        public Builder backoff(long initialMillis, long maxMillis) {
+            this.initialBackoffMillis = initialMillis;
+            this.maxBackoffMillis     = Math.max(initialMillis, maxMillis);
+            return this;
+        }
+
+        /***
+         * @param millis        - total time after which no new attempt is started, 0 for no deadline
+         */
+        public Builder deadlineMillis(long millis) {
+            this.deadlineMillis = millis;
+            return this;
+        }
+
+        /***
+         * @param types         - exceptions worth retrying, any other one is thrown right away
+         */
+        @SafeVarargs
+        public final Builder retryOn(Class<? extends Throwable>... types) {
+            this.retryOn = new ArrayList<>(Arrays.asList(types));
+            return this;
+        }
+
+        /***
+         * @param condition     - checked before each retry, e.g. WaitBudget::isExhausted
+         */
+        public Builder giveUpWhen(BooleanSupplier condition) {
+            this.giveUpWhen = condition;
+            return this;
+        }
+
+        /***
+         * Builds the policy; policies are registered by name, building a name twice returns the first policy
+         *
+         * @return              - the policy
+         */
+        public RetryPolicy build() {
+            RetryPolicy policy = new RetryPolicy(this);
+            policies.putIfAbsent(policy.name, policy);
+            return policies.get(policy.name);
+        }
+    }
+}
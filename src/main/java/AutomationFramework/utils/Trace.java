@@ -0,0 +1,176 @@
+package AutomationFramework.utils;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Timeline of the framework operations of each test, written as a Chrome Trace Event file
+ * (open it in chrome://tracing or https://ui.perfetto.dev).
+ *
+ * Operations open nested spans:
+ *
+ *     try (Trace.Span span = Trace.span("findElement", by)) {
+ *         ...
+ *     }
+ *
+ * Each thread records into its own list, so recording threads never contend. Between startTest and endTest the
+ * spans of the thread are kept, endTest writes them to trace.dir/&lt;test&gt;-&lt;thread id&gt;.json.
+ * With trace.enabled=false (or outside a test) span() returns a shared no-op span: one check and no allocation,
+ * the detail is not even turned into a string.
+ */
+public abstract class Trace {
+    private static final boolean    ENABLED = AppConfig.getBoolean("trace.enabled", false);
+    private static final Path       DIR     = Paths.get(AppConfig.getString("trace.dir", "target/traces"));
+    private static final long       ORIGIN  = System.nanoTime();
+
+    private static final ThreadLocal<Recorder> recorder = new ThreadLocal<>();
+
+    /***
+     * An open span, closed by try-with-resources
+     */
+    public static class Span implements AutoCloseable {
+        private final Recorder  owner;
+        private final String    name;
+        private final Object    detail;
+        private final long      start;
+        private long            end;
+
+        private Span(Recorder owner, String name, Object detail) {
+            this.owner  = owner;
+            this.name   = name;
+            this.detail = detail;
+            this.start  = owner == null ? 0 : System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if (owner != null) {
+                end = System.nanoTime();
+                owner.spans.add(this);
+            }
+        }
+    }
+
+    private static final Span NOOP = new Span(null, null, null);
+
+    /***
+     * Spans of the current test of one thread
+     */
+    private static class Recorder {
+        final String        test;
+        final List<Span>    spans = new ArrayList<>();
+
+        Recorder(String test) {
+            this.test = test;
+        }
+    }
+
+    /***
+     * Opens a span on the current thread
+     *
+     * @param name              - operation name
+     * @return                  - the span, to be closed when the operation ends
+     */
+    public static Span span(String name) {
+        return span(name, null);
+    }
+
+    /***
+     * Opens a span on the current thread
+     *
+     * @param name              - operation name
+     * @param detail            - shown in the span arguments (e.g. the locator), turned into a string only when written
+     * @return                  - the span, to be closed when the operation ends
+     */
+    public static Span span(String name, Object detail) {
+        if (!ENABLED) {
+            return NOOP;
+        }
+        Recorder current = recorder.get();
+        return current == null ? NOOP : new Span(current, name, detail);
+    }
+
+    /***
+     * Starts recording the spans of the current thread for a test
+     *
+     * @param test              - test name, also the file name
+     */
+    public static void startTest(String test) {
+        if (ENABLED) {
+            recorder.set(new Recorder(test));
+        }
+    }
+
+    /***
+     * Stops recording and writes the spans of the test
+     *
+     * @return                  - the trace file, null if nothing was recorded
+     */
+    public static Path endTest() {
+        Recorder current = recorder.get();
+        recorder.remove();
+        if (current == null || current.spans.isEmpty()) {
+            return null;
+        }
+
+        Path file = DIR.resolve(current.test.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Thread.currentThread().getId() + ".json");
+        try {
+            Files.createDirectories(DIR);
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                write(current, out);
+            }
+            Logger.debug("Trace written to " + file.toAbsolutePath());
+            return file;
+        }
+        catch (Exception e) {
+            Logger.warn("Could not write trace " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /***
+     * Writes the spans as complete ("X") events of the JSON Object Format
+     */
+    private static void write(Recorder current, Writer out) throws Exception {
+        long tid = Thread.currentThread().getId();
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        out.write(String.format("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                tid, escape(current.test)));
+        for (Span span : current.spans) {
+            out.write(String.format(",%n{\"name\":\"%s\",\"cat\":\"framework\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%d,\"dur\":%d",
+                    escape(span.name), tid,
+                    TimeUnit.NANOSECONDS.toMicros(span.start - ORIGIN), TimeUnit.NANOSECONDS.toMicros(span.end - span.start)));
+            if (span.detail != null) {
+                out.write(",\"args\":{\"detail\":\"" + escape(String.valueOf(span.detail)) + "\"}");
+            }
+            out.write("}");
+        }
+        out.write("]}");
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':  escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -2,13 +2,18 @@ package Pages;
 
 
 import AutomationFramework.interactions.Clicks;
+import AutomationFramework.interactions.ElementProperty;
+import AutomationFramework.interactions.ElementSnapshot;
 import AutomationFramework.interactions.Elements;
+import AutomationFramework.interactions.Wait;
 import AutomationFramework.utils.Logger;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import org.testng.Assert;
 
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 enum ListElements{
@@ -63,22 +68,25 @@ public class TQA_TextBox {
     }
 
     private void checkInputsToBeVisible() throws Exception{
-        WebElement fullName             = Elements.findElement(By.id("userName"));
-        WebElement email                = Elements.findElement(By.id("userEmail"));
-        WebElement currentAddress       = Elements.findElement(By.id("currentAddress"));
-        WebElement permanentAddress     = Elements.findElement(By.id("permanentAddress"));
-        WebElement submitButton         = Elements.findElement(By.id("submit"));
-
-        Assert.assertTrue(fullName.isDisplayed());
-        Assert.assertTrue(email.isDisplayed());
-        Assert.assertTrue(currentAddress.isDisplayed());
-        Assert.assertTrue(permanentAddress.isDisplayed());
-        Assert.assertTrue(submitButton.isDisplayed());
+        Wait.waitForVisible(By.id("userName"), true);
+
+        // the visibility of every input is read with a single script
+        List<ElementSnapshot> inputs = Elements.readPropertiesBy(Arrays.asList(
+                By.id("userName"),
+                By.id("userEmail"),
+                By.id("currentAddress"),
+                By.id("permanentAddress"),
+                By.id("submit")), EnumSet.of(ElementProperty.DISPLAYED));
+
+        for (ElementSnapshot input : inputs) {
+            Assert.assertTrue(input.isDisplayed());
+        }
 
+        WebElement fullName = inputs.get(0).getElement();
         List<WebElement> outputVisibleElements = fullName.findElements(By.className("mb-1"));
 
         Logger.debug("Children Count is: " + outputVisibleElements.size());
-        for (WebElement elem: outputVisibleElements) {
+        for (ElementSnapshot elem: Elements.readProperties(outputVisibleElements, EnumSet.of(ElementProperty.TEXT))) {
             Assert.assertTrue(elem.getText().isEmpty());
         }
     }
@@ -1,16 +1,27 @@
+import AutomationFramework.exceptions.CommandBudgetExceededException;
+import AutomationFramework.runner.CommandStats;
 import AutomationFramework.runner.WebDriverManager;
+import AutomationFramework.utils.Logger;
+import AutomationFramework.utils.Trace;
 import Pages.TQA_TextBox;
 import org.openqa.selenium.support.PageFactory;
+import org.testng.ITestResult;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.lang.reflect.Method;
+
 public class TestWebdriverClass {
     TQA_TextBox elementsPage;
 
     @BeforeMethod
-    public void beforeSuite() {
-        WebDriverManager.startWebDriver();
+    public void beforeSuite(Method method) {
+        Logger.startTest(method.getName());
+        Trace.startTest(method.getName());
+        CommandStats.startTest(method.getName());
+        WebDriverManager.leaseWebDriver();
         WebDriverManager.openURLPage("https://demoqa.com/elements");
         elementsPage = PageFactory.initElements(WebDriverManager.getWebDriver(), TQA_TextBox.class);
     }
@@ -20,8 +31,23 @@ public class TestWebdriverClass {
         elementsPage.clickOnCheckboxAndCheckIfInputsAreVisible();
     }
 
+    @AfterMethod
+    public void releaseWebDriver(ITestResult result) {
+        CommandStats.Report commands = CommandStats.endTest();
+        if (commands != null) {
+            Logger.info(commands.toString());
+            if (commands.isOverBudget() && result.isSuccess()) {
+                result.setStatus(ITestResult.FAILURE);
+                result.setThrowable(new CommandBudgetExceededException(commands.toString()));
+            }
+        }
+        WebDriverManager.releaseWebDriver();
+        Trace.endTest();
+        Logger.endTest(!result.isSuccess());
+    }
+
     @AfterSuite
     public void closeWebDriver() throws Exception {
-        WebDriverManager.stop();
+        WebDriverManager.stopAll();
     }
 }